@@ -34,23 +34,38 @@ import org.spongepowered.despector.decompiler.Decompiler;
 import org.spongepowered.despector.decompiler.Decompilers;
 import org.spongepowered.despector.decompiler.DirectoryWalker;
 import org.spongepowered.despector.decompiler.JarWalker;
+import org.spongepowered.despector.decompiler.method.StepProfiler;
 import org.spongepowered.despector.emitter.Emitter;
 import org.spongepowered.despector.emitter.Emitters;
 import org.spongepowered.despector.emitter.format.EmitterFormat;
 import org.spongepowered.despector.emitter.format.FormatLoader;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
-import org.spongepowered.despector.parallel.Timing;
+import org.spongepowered.despector.emitter.output.CachingSourceOutput;
+import org.spongepowered.despector.emitter.output.DirectorySourceOutput;
+import org.spongepowered.despector.emitter.output.JarSourceOutput;
+import org.spongepowered.despector.emitter.output.SourceCache;
+import org.spongepowered.despector.emitter.output.SourceOutput;
+import org.spongepowered.despector.parallel.Scheduler;
+import org.spongepowered.despector.parallel.Scheduler.WorkerStats;
 import org.spongepowered.despector.transform.TypeTransformer;
 import org.spongepowered.despector.transform.cleanup.CleanupOperations;
+import org.spongepowered.despector.util.metrics.Metrics;
+import org.spongepowered.despector.util.serialization.AstLoader;
+import org.spongepowered.despector.util.serialization.MessagePacker;
 
-import java.io.FileWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -58,6 +73,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
 
+import javax.annotation.Nullable;
+
 /**
  * Despector.
  */
@@ -67,12 +84,69 @@ public final class Despector {
 
     public static Language LANGUAGE = Language.ANY;
 
+    private static final int DEFAULT_STREAM_WINDOW = 256;
+    private static int stream_window = 0;
+    private static Path cache_dir = null;
+    private static Path save_ast = null;
+    private static Path load_ast = null;
+
     static {
         flags.put("--config=", (arg) -> {
             String config = arg.substring(9);
             Path config_path = Paths.get(".").resolve(config);
             ConfigManager.load(config_path);
         });
+        flags.put("--workers=", (arg) -> {
+            try {
+                LibraryConfiguration.parallel_workers = Integer.parseInt(arg.substring(10));
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid worker count: " + arg.substring(10));
+                System.exit(0);
+            }
+        });
+        flags.put("--method-timeout=", (arg) -> {
+            try {
+                LibraryConfiguration.method_time_budget = Long.parseLong(arg.substring(17));
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid method timeout: " + arg.substring(17));
+                System.exit(0);
+            }
+        });
+        flags.put("--method-steps=", (arg) -> {
+            try {
+                LibraryConfiguration.method_step_budget = Long.parseLong(arg.substring(15));
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid method step budget: " + arg.substring(15));
+                System.exit(0);
+            }
+        });
+        flags.put("--stream", (arg) -> {
+            if (arg.startsWith("--stream=")) {
+                try {
+                    stream_window = Integer.parseInt(arg.substring(9));
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid stream window: " + arg.substring(9));
+                    System.exit(0);
+                }
+            } else {
+                stream_window = DEFAULT_STREAM_WINDOW;
+            }
+        });
+        flags.put("--cache=", (arg) -> {
+            cache_dir = Paths.get(arg.substring(8));
+        });
+        flags.put("--save-ast=", (arg) -> {
+            save_ast = Paths.get(arg.substring(11));
+        });
+        flags.put("--load-ast=", (arg) -> {
+            load_ast = Paths.get(arg.substring(11));
+        });
+        flags.put("--profile-steps", (arg) -> {
+            LibraryConfiguration.profile_steps = true;
+        });
+        flags.put("--intern-symbols", (arg) -> {
+            LibraryConfiguration.intern_symbols = true;
+        });
         flags.put("--lang=", (arg) -> {
             String lang = arg.substring(7);
             if ("kotlin".equalsIgnoreCase(lang)) {
@@ -159,6 +233,11 @@ public final class Despector {
             return;
         }
 
+        // flags from an earlier call do not carry over
+        stream_window = 0;
+        cache_dir = null;
+        save_ast = null;
+        load_ast = null;
         List<String> sources = new ArrayList<>();
         outer: for (int i = 0; i < args.length - 1; i++) {
             if (args[i].startsWith("-")) {
@@ -173,11 +252,42 @@ public final class Despector {
                 sources.add(args[i]);
             }
         }
+        if (save_ast != null && (stream_window > 0 || cache_dir != null)) {
+            // streamed types release their bodies and cached types are only
+            // stubs so neither can be saved
+            System.err.println("--save-ast cannot be combined with --stream or --cache");
+            System.exit(0);
+        }
+        if (stream_window > 0 || cache_dir != null) {
+            for (String s : sources) {
+                if (!s.endsWith(".jar")) {
+                    // only the jar walker reads types in windows
+                    System.err.println("--stream and --cache only support jar sources: " + s);
+                    System.exit(0);
+                }
+            }
+        }
         String destination = args[args.length - 1];
-        Path output = Paths.get(destination).toAbsolutePath();
-        if (!Files.exists(output)) {
-            Files.createDirectories(output);
+        Path output_path = Paths.get(destination).toAbsolutePath();
+        SourceOutput output;
+        if (destination.endsWith(".jar") || destination.endsWith(".zip")) {
+            if (output_path.getParent() != null && !Files.exists(output_path.getParent())) {
+                Files.createDirectories(output_path.getParent());
+            }
+            output = new JarSourceOutput(output_path);
+        } else {
+            if (!Files.exists(output_path)) {
+                Files.createDirectories(output_path);
+            }
+            output = new DirectorySourceOutput(output_path);
         }
+        CachingSourceOutput caching = null;
+        if (cache_dir != null) {
+            caching = new CachingSourceOutput(output, new SourceCache(cache_dir, getCacheVersion()));
+            output = caching;
+        }
+        final SourceOutput emit_output = output;
+        final CachingSourceOutput cache = caching;
         EmitterFormat formatter = EmitterFormat.defaults();
         formatter.loadFrom(ConfigManager.getConfig().formatter);
         Path formatter_path = Paths.get(".").resolve(ConfigManager.getConfig().emitter.formatting_path);
@@ -190,38 +300,7 @@ public final class Despector {
         Decompiler decompiler = Decompilers.get(LANGUAGE);
 
         if (LibraryConfiguration.parallel) {
-            System.out.println("Running parallel decompile with " + Runtime.getRuntime().availableProcessors() + " workers");
-        }
-
-        SourceSet source = new SourceSet();
-        for (String s : sources) {
-            Path path = Paths.get(s);
-            if (!Files.exists(path)) {
-                System.err.println("Unknown source: " + path.toAbsolutePath().toString());
-            } else if (s.endsWith(".jar")) {
-                JarWalker walker = new JarWalker(path);
-                walker.walk(source, decompiler);
-            } else if (Files.isDirectory(path)) {
-                DirectoryWalker walker = new DirectoryWalker(path);
-                try {
-                    walker.walk(source, decompiler);
-                } catch (IOException e) {
-                    System.err.println("Error while walking directory: " + path.toAbsolutePath().toString());
-                    e.printStackTrace();
-                }
-            } else if (s.endsWith(".class")) {
-                decompiler.decompile(path, source);
-            } else {
-                System.err.println("Unknown source type: " + path.toAbsolutePath().toString() + " must be jar or directory");
-            }
-        }
-        if (LibraryConfiguration.parallel && decompiler instanceof BaseDecompiler) {
-            ((BaseDecompiler) decompiler).flushTasks();
-        }
-
-        if (source.getAllClasses().isEmpty()) {
-            System.err.println("No sources found.");
-            return;
+            System.out.println("Running parallel decompile with " + LibraryConfiguration.getWorkerCount() + " workers");
         }
 
         List<TypeTransformer> transformers = new ArrayList<>();
@@ -253,43 +332,221 @@ public final class Despector {
                 target_trans.addAll(trans);
             }
         }
-        if (!transformers.isEmpty() || !targeted_transformers.isEmpty()) {
-            for (TypeEntry type : source.getAllClasses()) {
-                for (TypeTransformer transformer : transformers) {
-                    transformer.transform(type);
+
+        Emitter<JavaEmitterContext> emitter = Emitters.get(LANGUAGE);
+        Scheduler<Runnable> emit_scheduler = null;
+        if (LibraryConfiguration.parallel) {
+            emit_scheduler = new Scheduler<>(LibraryConfiguration.getWorkerCount());
+        }
+        final Scheduler<Runnable> emit_tasks = emit_scheduler;
+
+        try {
+            SourceSet source = new SourceSet();
+            Set<TypeEntry> streamed = new HashSet<>();
+            if (load_ast != null) {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(load_ast))) {
+                    AstLoader.loadSources(source, in);
                 }
-                Set<TypeTransformer> targetted = targeted_transformers.get(type.getName());
-                if (targetted != null) {
-                    for (TypeTransformer transformer : targetted) {
-                        transformer.transform(type);
+            }
+            for (String s : sources) {
+                Path path = Paths.get(s);
+                if (!Files.exists(path)) {
+                    System.err.println("Unknown source: " + path.toAbsolutePath().toString());
+                } else if (s.endsWith(".jar")) {
+                    JarWalker walker = new JarWalker(path);
+                    if (cache != null) {
+                        // types whose cached source is still valid are written
+                        // from the cache with the rest of their window and
+                        // only loaded as stubs
+                        walker.setFilter((name, class_files) -> {
+                            String key = cache.getCache().getKey(class_files);
+                            SourceCache.Entry cached = cache.getCache().get(key);
+                            if (cached != null) {
+                                cache.writeCached(cached);
+                                return false;
+                            }
+                            cache.expect(name, key);
+                            return true;
+                        });
+                    }
+                    if (stream_window > 0 || cache != null) {
+                        int window = stream_window > 0 ? stream_window : Integer.MAX_VALUE;
+                        walker.walk(source, decompiler, window, (types) -> {
+                            transform(types, transformers, targeted_transformers);
+                            emitAll(types, emit_output, formatter, emitter, emit_tasks);
+                            streamed.addAll(types);
+                        });
+                    } else {
+                        walker.walk(source, decompiler);
                     }
+                } else if (Files.isDirectory(path)) {
+                    DirectoryWalker walker = new DirectoryWalker(path);
+                    try {
+                        walker.walk(source, decompiler);
+                    } catch (IOException e) {
+                        System.err.println("Error while walking directory: " + path.toAbsolutePath().toString());
+                        e.printStackTrace();
+                    }
+                } else if (s.endsWith(".class")) {
+                    decompiler.decompile(path, source);
+                } else {
+                    System.err.println("Unknown source type: " + path.toAbsolutePath().toString() + " must be jar or directory");
                 }
             }
+            if (LibraryConfiguration.parallel && decompiler instanceof BaseDecompiler) {
+                ((BaseDecompiler) decompiler).flushTasks();
+            }
+
+            if (source.getAllClasses().isEmpty()) {
+                System.err.println("No sources found.");
+                return;
+            }
+
+            if (save_ast != null) {
+                // saved before any cleanup so that the cleanup operations may be
+                // changed when re-emitting
+                try (MessagePacker pack = new MessagePacker(new BufferedOutputStream(Files.newOutputStream(save_ast)))) {
+                    source.writeTo(pack);
+                }
+            }
+
+            List<TypeEntry> remaining = new ArrayList<>();
+            for (TypeEntry type : source.getAllClasses()) {
+                if (!streamed.contains(type) && !type.isStub()) {
+                    remaining.add(type);
+                }
+            }
+            transform(remaining, transformers, targeted_transformers);
+            emitAll(remaining, output, formatter, emitter, emit_tasks);
+        } finally {
+            // finishes the jar with the files written so far even if
+            // decompiling or emitting failed
+            output.close();
         }
 
-        Emitter<JavaEmitterContext> emitter = Emitters.get(LANGUAGE);
+        if (cache != null) {
+            System.out.println("Source cache: " + Metrics.CACHE_HITS.get() + " hits, " + Metrics.CACHE_MISSES.get() + " misses");
+        }
+        if (LibraryConfiguration.print_times) {
+            System.out.print(Metrics.toJson());
+            if (decompiler instanceof BaseDecompiler && ((BaseDecompiler) decompiler).getScheduler() != null) {
+                Scheduler<?> scheduler = ((BaseDecompiler) decompiler).getScheduler();
+                long wall_time = scheduler.getTotalExecuteTime();
+                for (WorkerStats stats : scheduler.getWorkerStats()) {
+                    long utilization = wall_time == 0 ? 0 : (stats.getBusyTime() * 100) / wall_time;
+                    System.out.println("Worker " + stats.getName() + ": " + stats.getTasksRun() + " methods, busy " + (stats.getBusyTime() / 1000000)
+                            + "ms (" + utilization + "% utilization)");
+                }
+            }
+        }
+        if (LibraryConfiguration.profile_steps) {
+            StepProfiler.writeReport(System.out);
+        }
 
-        for (TypeEntry type : source.getAllClasses()) {
-            if (type.isInnerClass() || type.isAnonType()) {
-                continue;
+        if (emit_tasks != null) {
+            emit_tasks.close();
+        }
+        if (decompiler instanceof BaseDecompiler) {
+            ((BaseDecompiler) decompiler).close();
+        }
+
+    }
+
+    /**
+     * Gets a string identifying everything which affects the emitted sources
+     * other than the class files themselves.
+     */
+    private static String getCacheVersion() throws IOException {
+        StringBuilder version = new StringBuilder();
+        String impl = Despector.class.getPackage().getImplementationVersion();
+        version.append(impl == null ? "dev" : impl).append(';');
+        version.append(LANGUAGE).append(';');
+        version.append(LibraryConfiguration.method_time_budget).append(';');
+        version.append(LibraryConfiguration.method_step_budget).append(';');
+        Path[] settings = new Path[] {ConfigManager.getConfigPath(), Paths.get(".").resolve(ConfigManager.getConfig().emitter.formatting_path),
+                Paths.get(".").resolve(ConfigManager.getConfig().emitter.imports_path)};
+        for (Path setting : settings) {
+            if (setting != null && Files.isRegularFile(setting)) {
+                version.append(new String(Files.readAllBytes(setting), StandardCharsets.UTF_8));
             }
-            Path out = output.resolve(type.getName() + LANGUAGE.getExtension(type));
-            if (!Files.exists(out.getParent())) {
-                Files.createDirectories(out.getParent());
+            version.append(';');
+        }
+        return version.toString();
+    }
+
+    private static void transform(Collection<TypeEntry> types, List<TypeTransformer> transformers,
+            Map<String, Set<TypeTransformer>> targeted_transformers) {
+        if (transformers.isEmpty() && targeted_transformers.isEmpty()) {
+            return;
+        }
+        for (TypeEntry type : types) {
+            for (TypeTransformer transformer : transformers) {
+                transformer.transform(type);
             }
-            try (FileWriter writer = new FileWriter(out.toFile())) {
-                JavaEmitterContext ctx = new JavaEmitterContext(writer, formatter);
-                emitter.emit(ctx, type);
+            Set<TypeTransformer> targetted = targeted_transformers.get(type.getName());
+            if (targetted != null) {
+                for (TypeTransformer transformer : targetted) {
+                    transformer.transform(type);
+                }
             }
         }
+    }
 
-        if (LibraryConfiguration.print_times) {
-            System.out.println("Time spend decompiling: " + (Timing.time_decompiling / 1000000) + "ms");
-            System.out.println("Time spend decompiling methods: " + (Timing.time_decompiling_methods / 1000000) + "ms");
-            System.out.println("Time spend loading classes: " + (Timing.time_loading_classes / 1000000) + "ms");
-            System.out.println("Time spend emitting: " + (Timing.time_emitting / 1000000) + "ms");
+    /**
+     * Emits the given types, spreading them across the given scheduler if one
+     * is present. Each type is written through its own writer and emitter
+     * context so the output matches the serial path.
+     */
+    private static void emitAll(Collection<TypeEntry> types, SourceOutput output, EmitterFormat formatter, Emitter<JavaEmitterContext> emitter,
+            @Nullable Scheduler<Runnable> scheduler) {
+        List<String> paths = new ArrayList<>();
+        for (TypeEntry type : types) {
+            if (!type.isInnerClass() && !type.isAnonType()) {
+                paths.add(getOutputPath(type));
+            }
+        }
+        output.begin(paths);
+        if (scheduler == null) {
+            for (TypeEntry type : types) {
+                emit(type, output, formatter, emitter);
+            }
+            return;
+        }
+        for (TypeEntry type : types) {
+            if (type.isInnerClass() || type.isAnonType()) {
+                continue;
+            }
+            scheduler.add(() -> emit(type, output, formatter, emitter));
         }
+        try {
+            scheduler.execute();
+        } finally {
+            scheduler.reset();
+        }
+    }
 
+    private static String getOutputPath(TypeEntry type) {
+        return type.getName() + LANGUAGE.getExtension(type);
+    }
+
+    private static void emit(TypeEntry type, SourceOutput output, EmitterFormat formatter, Emitter<JavaEmitterContext> emitter) {
+        if (type.isInnerClass() || type.isAnonType()) {
+            return;
+        }
+        String path = getOutputPath(type);
+        try {
+            try (Writer writer = output.open(path)) {
+                JavaEmitterContext ctx = new JavaEmitterContext(writer, formatter);
+                try {
+                    emitter.emit(ctx, type);
+                } catch (RuntimeException | Error e) {
+                    output.discard(path);
+                    throw e;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     private Despector() {
@@ -40,6 +40,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 /**
  * An instance of an annotation on a member.
  */
@@ -127,7 +129,14 @@ public class Annotation {
         return this.values.keySet();
     }
 
-    private void writeObj(Object o, MessagePacker pack) throws IOException {
+    /**
+     * Writes the given annotation value to the given {@link MessagePacker}.
+     */
+    public static void writeValue(@Nullable Object o, MessagePacker pack) throws IOException {
+        if (o == null) {
+            pack.writeNil();
+            return;
+        }
         pack.startMap(2);
         pack.writeString("typename").writeString(o.getClass().getName());
         pack.writeString("value");
@@ -139,6 +148,8 @@ public class Annotation {
             pack.writeInt(((Short) o).shortValue());
         } else if (o instanceof Character) {
             pack.writeUnsignedInt((char) o);
+        } else if (o instanceof Boolean) {
+            pack.writeBool(((Boolean) o).booleanValue());
         } else if (o instanceof Long) {
             pack.writeInt(((Long) o).longValue());
         } else if (o instanceof Float) {
@@ -151,7 +162,7 @@ public class Annotation {
             List<?> lst = (List<?>) o;
             pack.startArray(lst.size());
             for (Object obj : lst) {
-                writeObj(obj, pack);
+                writeValue(obj, pack);
             }
             pack.endArray();
         } else if (o instanceof ClassTypeSignature) {
@@ -184,9 +195,9 @@ public class Annotation {
             pack.writeString("name").writeString(key);
             pack.writeString("type").writeString(this.type.getType(key).getName());
             pack.writeString("default");
-            writeObj(this.type.getDefaultValue(key), pack);
+            writeValue(this.type.getDefaultValue(key), pack);
             pack.writeString("value");
-            writeObj(this.values.get(key), pack);
+            writeValue(this.values.get(key), pack);
             pack.endMap();
         }
         pack.endArray();
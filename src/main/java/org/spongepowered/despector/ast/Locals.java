@@ -27,6 +27,7 @@ package org.spongepowered.despector.ast;
 import com.google.common.collect.Lists;
 import org.spongepowered.despector.ast.generic.ClassTypeSignature;
 import org.spongepowered.despector.ast.generic.TypeSignature;
+import org.spongepowered.despector.util.InsnOffsets;
 import org.spongepowered.despector.util.SignatureParser;
 import org.spongepowered.despector.util.serialization.MessagePacker;
 
@@ -82,6 +83,13 @@ public class Locals {
      * Bakes the local instances using the given label indices.
      */
     public void bakeInstances(List<Integer> label_indices) {
+        bakeInstances(InsnOffsets.of(label_indices));
+    }
+
+    /**
+     * Bakes the local instances using the given instruction offsets.
+     */
+    public void bakeInstances(InsnOffsets label_indices) {
         for (Local local : this.locals) {
             local.bakeInstances(label_indices);
         }
@@ -199,6 +207,14 @@ public class Locals {
          * Bakes the instances of this local.
          */
         public void bakeInstances(List<Integer> label_indices) {
+            bakeInstances(InsnOffsets.of(label_indices));
+        }
+
+        /**
+         * Bakes the instances of this local using the given instruction
+         * offsets.
+         */
+        public void bakeInstances(InsnOffsets label_indices) {
             for (LVT l : this.lvt) {
                 int start = label_indices.indexOf(l.start_pc);
                 if (start == -1) {
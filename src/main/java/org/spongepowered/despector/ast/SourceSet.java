@@ -30,6 +30,8 @@ import org.spongepowered.despector.Language;
 import org.spongepowered.despector.ast.type.EnumEntry;
 import org.spongepowered.despector.ast.type.InterfaceEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.Decompiler;
 import org.spongepowered.despector.decompiler.Decompilers;
 import org.spongepowered.despector.util.serialization.AstSerializer;
 import org.spongepowered.despector.util.serialization.MessagePacker;
@@ -37,10 +39,13 @@ import org.spongepowered.despector.util.serialization.MessagePacker;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
 
 /**
  * A source set for types which are part of the obfuscated source being mapped.
@@ -48,15 +53,23 @@ import java.util.Set;
 public class SourceSet {
 
     private Loader loader;
-    private final Set<String> load_failed_cache = new HashSet<>();
+    private final Set<String> load_failed_cache = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, TypeEntry> classes = new ConcurrentHashMap<>();
+    private final Map<String, EnumEntry> enums = new ConcurrentHashMap<>();
+    private final Map<String, InterfaceEntry> interfaces = new ConcurrentHashMap<>();
+
+    private final Map<String, AnnotationType> annotations = new ConcurrentHashMap<>();
 
-    private final Map<String, TypeEntry> classes = new HashMap<>();
-    private final Map<String, EnumEntry> enums = new HashMap<>();
-    private final Map<String, InterfaceEntry> interfaces = new HashMap<>();
+    private final Map<String, PendingLoad> loading = new ConcurrentHashMap<>();
 
-    private final Map<String, AnnotationType> annotations = new HashMap<>();
+    @Nullable private SymbolTable symbols;
+    private boolean stub_loading = LibraryConfiguration.stub_loaded_types;
 
     public SourceSet() {
+        if (LibraryConfiguration.intern_symbols) {
+            this.symbols = new SymbolTable();
+        }
     }
 
     public Loader getLoader() {
@@ -67,6 +80,39 @@ public class SourceSet {
         this.loader = loader;
     }
 
+    /**
+     * Gets if types found by the loader are loaded as stubs rather than being
+     * fully decompiled.
+     */
+    public boolean isStubLoading() {
+        return this.stub_loading;
+    }
+
+    /**
+     * Sets if types found by the loader are loaded as stubs, see
+     * {@link TypeEntry#isStub()}.
+     */
+    public void setStubLoading(boolean state) {
+        this.stub_loading = state;
+    }
+
+    /**
+     * Gets the symbol table that names and descriptors of types loaded into
+     * this source set are interned in, if any.
+     */
+    @Nullable
+    public SymbolTable getSymbolTable() {
+        return this.symbols;
+    }
+
+    /**
+     * Sets the symbol table that names and descriptors of types loaded into
+     * this source set are interned in, or null to not intern them.
+     */
+    public void setSymbolTable(@Nullable SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
     /**
      * Inserts the given type into this source set.
      */
@@ -81,7 +127,9 @@ public class SourceSet {
     }
 
     /**
-     * Gets the type with the given internal name.
+     * Gets the type with the given internal name. If the type is not yet
+     * known it is requested from the loader, concurrent requests for the same
+     * type share a single load.
      */
     public TypeEntry get(String name) {
         checkNotNull(name);
@@ -93,20 +141,58 @@ public class SourceSet {
         }
         TypeEntry entry = this.classes.get(name);
         if (entry == null && this.loader != null && !this.load_failed_cache.contains(name)) {
-            InputStream data = this.loader.find(name);
-            if (data == null) {
-                this.load_failed_cache.add(name);
+            return load(name);
+        }
+        return entry;
+    }
+
+    private TypeEntry load(String name) {
+        PendingLoad pending = new PendingLoad();
+        PendingLoad existing = this.loading.putIfAbsent(name, pending);
+        if (existing != null) {
+            if (existing.owner == Thread.currentThread()) {
+                // the type is already being loaded further up this thread's
+                // stack, waiting on it here would never complete
                 return null;
             }
-            try {
-                entry = Decompilers.get(Language.ANY).decompile(data, this);
-            } catch (IOException e) {
-                e.printStackTrace();
-                this.load_failed_cache.add(name);
-                return null;
+            return existing.await();
+        }
+        TypeEntry entry = null;
+        try {
+            entry = this.classes.get(name);
+            if (entry == null && !this.load_failed_cache.contains(name)) {
+                entry = decompileFromLoader(name);
+            }
+        } catch (RuntimeException | Error e) {
+            pending.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.loading.remove(name, pending);
+            pending.result.complete(entry);
+        }
+        return entry;
+    }
+
+    private TypeEntry decompileFromLoader(String name) {
+        InputStream data = this.loader.find(name);
+        if (data == null) {
+            this.load_failed_cache.add(name);
+            return null;
+        }
+        TypeEntry entry;
+        try {
+            Decompiler decompiler = Decompilers.get(Language.ANY);
+            if (this.stub_loading) {
+                entry = decompiler.decompileStub(data, this);
+            } else {
+                entry = decompiler.decompile(data, this);
             }
-            add(entry);
+        } catch (IOException e) {
+            e.printStackTrace();
+            this.load_failed_cache.add(name);
+            return null;
         }
+        add(entry);
         return entry;
     }
 
@@ -150,12 +236,7 @@ public class SourceSet {
      * Gets the annotation type with the given internal name.
      */
     public AnnotationType getAnnotationType(String name) {
-        AnnotationType anno = this.annotations.get(name);
-        if (anno == null) {
-            anno = new AnnotationType(name);
-            this.annotations.put(name, anno);
-        }
-        return anno;
+        return this.annotations.computeIfAbsent(name, AnnotationType::new);
     }
 
     public Collection<AnnotationType> getAllAnnotations() {
@@ -183,6 +264,35 @@ public class SourceSet {
         pack.endMap();
     }
 
+    /**
+     * A load of a type from the loader which is in progress on some thread.
+     * Other threads requesting the same type wait on it rather than loading
+     * the type a second time.
+     */
+    private static class PendingLoad {
+
+        final Thread owner = Thread.currentThread();
+        final CompletableFuture<TypeEntry> result = new CompletableFuture<>();
+
+        PendingLoad() {
+        }
+
+        TypeEntry await() {
+            try {
+                return this.result.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+
+    }
+
     /**
      * A loader which from which new types can be requested on demand.
      */
@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.ast;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A table of symbols shared between all types of a {@link SourceSet}. Class
+ * names, member names and descriptors decoded from the constant pools of
+ * different class files are interned here so that only a single copy of each
+ * is retained.
+ */
+public class SymbolTable {
+
+    private final ConcurrentMap<String, String> symbols = new ConcurrentHashMap<>();
+
+    public SymbolTable() {
+    }
+
+    /**
+     * Gets the canonical instance of the given symbol, adding it to the table
+     * if this is its first occurrence.
+     */
+    public String intern(String symbol) {
+        checkNotNull(symbol);
+        String existing = this.symbols.putIfAbsent(symbol, symbol);
+        return existing == null ? symbol : existing;
+    }
+
+    /**
+     * Gets the number of distinct symbols in this table.
+     */
+    public int size() {
+        return this.symbols.size();
+    }
+
+    /**
+     * Removes all symbols from this table.
+     */
+    public void clear() {
+        this.symbols.clear();
+    }
+
+}
@@ -47,6 +47,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
 /**
  * Represents a method declaration in a type.
  * 
@@ -79,6 +81,9 @@ public class MethodEntry extends AstEntry {
     protected Locals locals;
     protected StatementBlock instructions = null;
 
+    @Nullable protected volatile Runnable pending_body;
+    @Nullable private Thread body_loader;
+
     protected MethodSignature sig;
 
     protected Object annotation_value = null;
@@ -248,6 +253,7 @@ public class MethodEntry extends AstEntry {
         if (this.is_abstract) {
             return null;
         }
+        loadBody();
         return this.instructions;
     }
 
@@ -259,6 +265,7 @@ public class MethodEntry extends AstEntry {
     }
 
     public InsnBlock getIR() {
+        loadBody();
         return this.ir;
     }
 
@@ -266,6 +273,44 @@ public class MethodEntry extends AstEntry {
         this.ir = block;
     }
 
+    /**
+     * Gets if the body of this method has been deferred and not yet been
+     * decompiled.
+     */
+    public boolean isBodyPending() {
+        return this.pending_body != null;
+    }
+
+    /**
+     * Sets a task which decompiles the body of this method, it is run the
+     * first time that the statements or the ir of this method are requested.
+     */
+    public void setPendingBody(@Nullable Runnable loader) {
+        this.pending_body = loader;
+    }
+
+    private void loadBody() {
+        if (this.pending_body == null) {
+            return;
+        }
+        synchronized (this) {
+            Runnable loader = this.pending_body;
+            if (loader == null || this.body_loader == Thread.currentThread()) {
+                // either another thread finished loading the body while we
+                // were waiting, or the loader itself is requesting the
+                // partially built body
+                return;
+            }
+            this.body_loader = Thread.currentThread();
+            try {
+                loader.run();
+            } finally {
+                this.body_loader = null;
+                this.pending_body = null;
+            }
+        }
+    }
+
     public Annotation getAnnotation(AnnotationType type) {
         return this.annotations.get(type);
     }
@@ -288,7 +333,7 @@ public class MethodEntry extends AstEntry {
 
     @Override
     public void writeTo(MessagePacker pack) throws IOException {
-        pack.startMap(18);
+        pack.startMap(19);
         pack.writeString("id").writeInt(AstSerializer.ENTRY_ID_METHOD);
         pack.writeString("access").writeInt(this.access.ordinal());
         pack.writeString("owner").writeString(this.owner);
@@ -308,9 +353,10 @@ public class MethodEntry extends AstEntry {
         pack.writeString("locals");
         this.locals.writeTo(pack);
         pack.writeString("instructions");
-        if (this.instructions != null) {
-            pack.startArray(this.instructions.getStatementCount());
-            for (Statement stmt : this.instructions.getStatements()) {
+        StatementBlock insns = getInstructions();
+        if (insns != null) {
+            pack.startArray(insns.getStatementCount());
+            for (Statement stmt : insns.getStatements()) {
                 stmt.writeTo(pack);
             }
             pack.endArray();
@@ -322,6 +368,8 @@ public class MethodEntry extends AstEntry {
             anno.writeTo(pack);
         }
         pack.endArray();
+        pack.writeString("annotationvalue");
+        Annotation.writeValue(this.annotation_value, pack);
         pack.endMap();
     }
 
@@ -329,8 +377,9 @@ public class MethodEntry extends AstEntry {
         if (visitor instanceof TypeVisitor) {
             ((TypeVisitor) visitor).visitMethod(this);
         }
-        if (this.instructions != null) {
-            this.instructions.accept(visitor);
+        StatementBlock insns = getInstructions();
+        if (insns != null) {
+            insns.accept(visitor);
         }
         if (visitor instanceof TypeVisitor) {
             ((TypeVisitor) visitor).visitMethodEnd();
@@ -62,6 +62,7 @@ public abstract class TypeEntry extends AstEntry {
     protected boolean is_abstract;
     protected boolean is_deprecated;
     protected boolean is_inner_class;
+    protected boolean is_stub;
 
     protected final String name;
 
@@ -140,6 +141,21 @@ public abstract class TypeEntry extends AstEntry {
         this.is_deprecated = state;
     }
 
+    /**
+     * Gets if this type is a stub, only its signatures were loaded and its
+     * methods have no bodies.
+     */
+    public boolean isStub() {
+        return this.is_stub;
+    }
+
+    /**
+     * Sets if this type is a stub.
+     */
+    public void setStub(boolean state) {
+        this.is_stub = state;
+    }
+
     /**
      * Gets if this type is an inner class of another type.
      */
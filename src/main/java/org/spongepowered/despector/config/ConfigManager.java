@@ -32,6 +32,8 @@ import ninja.leaping.configurate.objectmapping.ObjectMapper;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+import javax.annotation.Nullable;
+
 /**
  * The manager for all configuration.
  */
@@ -44,6 +46,7 @@ public class ConfigManager {
     private static ObjectMapper<ConfigBase>.BoundInstance configMapper;
 
     private static ConfigBase config = null;
+    private static Path config_path = null;
 
     /**
      * Gets the global configuration object.
@@ -55,11 +58,21 @@ public class ConfigManager {
         return config;
     }
 
+    /**
+     * Gets the path of the loaded configuration file, or null if the default
+     * configuration is in use.
+     */
+    @Nullable
+    public static Path getConfigPath() {
+        return config_path;
+    }
+
     /**
      * Loads the given configuration file.
      */
     public static void load(Path path) {
         System.out.println("Loading config from " + path.toString());
+        config_path = path;
         try {
             Files.createDirectories(path.getParent());
             if (Files.notExists(path)) {
@@ -33,4 +33,55 @@ public class LibraryConfiguration {
     public static boolean parallel = true;
     public static boolean print_times = false;
 
+    /**
+     * The number of worker threads used for parallel decompilation, or zero to
+     * use one per available processor.
+     */
+    public static int parallel_workers = 0;
+
+    /**
+     * The wall-clock time in milliseconds that decompiling a single method body
+     * may take before it is abandoned, or zero for no limit.
+     */
+    public static long method_time_budget = 0;
+    /**
+     * The number of decompiler steps that decompiling a single method body may
+     * take before it is abandoned, or zero for no limit.
+     */
+    public static long method_step_budget = 0;
+
+    /**
+     * Whether to time each registered step of the method decompiler, see
+     * {@link org.spongepowered.despector.decompiler.method.StepProfiler}.
+     */
+    public static boolean profile_steps = false;
+
+    /**
+     * Whether new source sets intern the names and descriptors of their types
+     * in a shared {@link org.spongepowered.despector.ast.SymbolTable}.
+     */
+    public static boolean intern_symbols = false;
+
+    /**
+     * Whether method bodies are only decompiled when they are first requested
+     * rather than when their type is loaded.
+     */
+    public static boolean lazy_method_bodies = false;
+
+    /**
+     * Whether new source sets load the types found by their loader as stubs
+     * holding only signatures rather than fully decompiling them.
+     */
+    public static boolean stub_loaded_types = false;
+
+    /**
+     * Gets the number of worker threads to use for parallel decompilation.
+     */
+    public static int getWorkerCount() {
+        if (parallel_workers > 0) {
+            return parallel_workers;
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
 }
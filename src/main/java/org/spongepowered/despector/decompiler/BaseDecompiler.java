@@ -24,6 +24,7 @@
  */
 package org.spongepowered.despector.decompiler;
 
+import com.google.common.io.ByteStreams;
 import org.spongepowered.despector.Language;
 import org.spongepowered.despector.ast.AccessModifier;
 import org.spongepowered.despector.ast.Annotation;
@@ -50,25 +51,29 @@ import org.spongepowered.despector.decompiler.loader.BytecodeTranslator;
 import org.spongepowered.despector.decompiler.loader.ClassConstantPool;
 import org.spongepowered.despector.decompiler.loader.ClassConstantPool.Entry;
 import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MethodHandleEntry;
+import org.spongepowered.despector.decompiler.loader.ClassFileReader;
 import org.spongepowered.despector.decompiler.method.PartialMethod.TryCatchRegion;
+import org.spongepowered.despector.decompiler.method.StackMapTable;
 import org.spongepowered.despector.parallel.MethodDecompileTask;
 import org.spongepowered.despector.parallel.Scheduler;
-import org.spongepowered.despector.parallel.Timing;
 import org.spongepowered.despector.util.SignatureParser;
 import org.spongepowered.despector.util.TypeHelper;
+import org.spongepowered.despector.util.metrics.Metrics;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+
+import javax.annotation.Nullable;
 
 /**
  * A language decompiler.
  */
-public class BaseDecompiler implements Decompiler {
+public class BaseDecompiler implements Decompiler, AutoCloseable {
 
     public static final boolean DUMP_IR_ON_LOAD = Boolean.getBoolean("despector.debug.dump_ir");
 
@@ -99,7 +104,19 @@ public class BaseDecompiler implements Decompiler {
     public BaseDecompiler(Language lang) {
         this.lang = lang;
         if (LibraryConfiguration.parallel) {
-            this.scheduler = new Scheduler<>(Runtime.getRuntime().availableProcessors());
+            this.scheduler = new Scheduler<>(LibraryConfiguration.getWorkerCount());
+        }
+    }
+
+    /**
+     * Creates a new decompiler which runs its parallel method decompilation on
+     * the given executor. The executor remains owned by the caller and is not
+     * shutdown when this decompiler is closed.
+     */
+    public BaseDecompiler(Language lang, Executor executor) {
+        this.lang = lang;
+        if (LibraryConfiguration.parallel) {
+            this.scheduler = new Scheduler<>(executor);
         }
     }
 
@@ -110,7 +127,34 @@ public class BaseDecompiler implements Decompiler {
 
     @Override
     public TypeEntry decompile(InputStream input, SourceSet set) throws IOException {
-        DataInputStream data = (input instanceof DataInputStream) ? (DataInputStream) input : new DataInputStream(input);
+        return decompile(ByteStreams.toByteArray(input), set);
+    }
+
+    /**
+     * Decompiles the given class file data. The method bodies of the type
+     * refer to slices of the given array, so it must not be modified until
+     * they have been decompiled.
+     */
+    @Override
+    public TypeEntry decompile(byte[] class_data, SourceSet set) throws IOException {
+        return decompile(class_data, set, false);
+    }
+
+    @Override
+    public TypeEntry decompileStub(InputStream input, SourceSet set) throws IOException {
+        return decompileStub(ByteStreams.toByteArray(input), set);
+    }
+
+    /**
+     * Loads a stub of the type in the given class file data, the code of its
+     * methods is skipped without being decompiled.
+     */
+    public TypeEntry decompileStub(byte[] class_data, SourceSet set) throws IOException {
+        return decompile(class_data, set, true);
+    }
+
+    private TypeEntry decompile(byte[] class_data, SourceSet set, boolean stub) throws IOException {
+        ClassFileReader data = new ClassFileReader(class_data);
         long decompile_start = System.nanoTime();
         int magic = data.readInt();
         if (magic != 0xCAFEBABE) {
@@ -122,8 +166,10 @@ public class BaseDecompiler implements Decompiler {
 
         // TODO check versions and adapt loading to support a range of versions
 
-        ClassConstantPool pool = new ClassConstantPool();
+        long pool_start = System.nanoTime();
+        ClassConstantPool pool = new ClassConstantPool(set.getSymbolTable());
         pool.load(data);
+        Metrics.CONSTANT_POOL.recordSince(pool_start);
 
         int access_flags = data.readUnsignedShort();
 
@@ -250,17 +296,13 @@ public class BaseDecompiler implements Decompiler {
             for (int a = 0; a < attribute_count; a++) {
                 String attribute_name = pool.getUtf8(data.readUnsignedShort());
                 int length = data.readInt();
-                if ("Code".equals(attribute_name)) {
+                if (stub && "Code".equals(attribute_name)) {
+                    data.skipBytes(length);
+                } else if ("Code".equals(attribute_name)) {
                     /* int max_stack = */ data.readUnsignedShort();
                     /* int max_locals = */ data.readUnsignedShort();
                     int code_length = data.readInt();
-                    byte[] code = new byte[code_length];
-                    int offs = 0;
-                    while (code_length > 0) {
-                        int len = data.read(code, offs, code_length);
-                        code_length -= len;
-                        offs += len;
-                    }
+                    int code_offset = data.skipBytes(code_length);
                     List<TryCatchRegion> catch_regions = new ArrayList<>();
                     int exception_table_length = data.readUnsignedShort();
                     for (int j = 0; j < exception_table_length; j++) {
@@ -271,7 +313,9 @@ public class BaseDecompiler implements Decompiler {
                         String ex = ex_index != 0 ? pool.getClass(ex_index).name : "";
                         catch_regions.add(new TryCatchRegion(start_pc, end_pc, catch_pc, ex));
                     }
-                    unfinished.code = code;
+                    unfinished.code = class_data;
+                    unfinished.code_offset = code_offset;
+                    unfinished.code_length = code_length;
                     unfinished.catch_regions = catch_regions;
                     int code_attribute_count = data.readUnsignedShort();
                     for (int ca = 0; ca < code_attribute_count; ca++) {
@@ -302,7 +346,8 @@ public class BaseDecompiler implements Decompiler {
                                 loc.getLVT(start_pc).setSignature(local_signature);
                             }
                         } else if ("StackMapTable".equals(code_attribute_name)) {
-                            data.skipBytes(clength);
+                            int stack_map_offset = data.skipBytes(clength);
+                            unfinished.stack_map = new StackMapTable(class_data, stack_map_offset, clength);
                         } else {
                             System.err.println("Skipping unknown code attribute: " + code_attribute_name);
                             data.skipBytes(clength);
@@ -464,26 +509,39 @@ public class BaseDecompiler implements Decompiler {
             entry.setSignature(sig);
         }
 
-        long classloading_time = System.nanoTime() - decompile_start;
-        Timing.time_loading_classes += classloading_time;
+        Metrics.CLASS_LOAD.recordSince(decompile_start);
+        Metrics.CLASSES.increment();
 
         entry.setLanguage(actual_lang);
 
+        if (stub) {
+            entry.setStub(true);
+            set.add(entry);
+            return entry;
+        }
+
         MethodDecompileTask task = new MethodDecompileTask(entry, pool, unfinished_methods, this.bytecode, bootstrap_methods);
-        if (LibraryConfiguration.parallel) {
+        if (LibraryConfiguration.lazy_method_bodies) {
+            task.defer();
+            set.add(entry);
+        } else if (LibraryConfiguration.parallel) {
             this.scheduler.add(task);
         } else {
-            long method_decompile_start = System.nanoTime();
             task.run();
             set.add(entry);
-            long method_decompile_time = System.nanoTime() - method_decompile_start;
-            Timing.time_decompiling_methods += method_decompile_time;
         }
-        long decompile_time = System.nanoTime() - decompile_start;
-        Timing.time_decompiling += decompile_time;
         return entry;
     }
 
+    /**
+     * Gets the scheduler used for parallel method decompilation, or null if
+     * parallel decompilation is disabled.
+     */
+    @Nullable
+    public Scheduler<MethodDecompileTask> getScheduler() {
+        return this.scheduler;
+    }
+
     public void flushTasks() {
         if (LibraryConfiguration.parallel) {
             long start = System.nanoTime();
@@ -491,13 +549,24 @@ public class BaseDecompiler implements Decompiler {
             for (MethodDecompileTask task : this.scheduler.getTasks()) {
                 task.getEntry().getSource().add(task.getEntry());
             }
-            long method_decompile_time = System.nanoTime() - start;
-            Timing.time_decompiling_methods += method_decompile_time;
+            Metrics.FLUSH.recordSince(start);
             this.scheduler.reset();
         }
     }
 
-    private Annotation readAnnotation(DataInputStream data, ClassConstantPool pool, SourceSet set) throws IOException {
+    /**
+     * Shuts down any worker threads owned by this decompiler. The threads are
+     * kept alive between calls to {@link #flushTasks()} so that subsequent
+     * flushes reuse them rather than spawning new threads.
+     */
+    @Override
+    public void close() {
+        if (this.scheduler != null) {
+            this.scheduler.close();
+        }
+    }
+
+    private Annotation readAnnotation(ClassFileReader data, ClassConstantPool pool, SourceSet set) throws IOException {
         String anno_type_name = pool.getUtf8(data.readUnsignedShort());
         AnnotationType anno_type = set.getAnnotationType(TypeHelper.descToType(anno_type_name));
         Annotation anno = new Annotation(anno_type);
@@ -509,7 +578,7 @@ public class BaseDecompiler implements Decompiler {
         return anno;
     }
 
-    private Object readElementValue(DataInputStream data, ClassConstantPool pool, SourceSet set) throws IOException {
+    private Object readElementValue(ClassFileReader data, ClassConstantPool pool, SourceSet set) throws IOException {
         char element_type_tag = (char) data.readUnsignedByte();
         if (element_type_tag == 's') {
             String value = pool.getUtf8(data.readUnsignedShort());
@@ -569,9 +638,16 @@ public class BaseDecompiler implements Decompiler {
     public static class UnfinishedMethod {
 
         public MethodEntry mth;
+        /**
+         * The array holding the bytecode of this method, the bytecode is the
+         * range of code_length bytes starting at code_offset.
+         */
         public byte[] code;
+        public int code_offset;
+        public int code_length;
         public List<TryCatchRegion> catch_regions;
         public Map<Integer, List<Annotation>> parameter_annotations;
+        @Nullable public StackMapTable stack_map;
 
         UnfinishedMethod() {
         }
@@ -27,10 +27,11 @@ package org.spongepowered.despector.decompiler;
 import org.spongepowered.despector.ast.SourceSet;
 import org.spongepowered.despector.ast.type.TypeEntry;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 /**
@@ -47,14 +48,21 @@ public interface Decompiler {
      * Decompiles the class file at the given path.
      */
     default TypeEntry decompile(Path cls_path, SourceSet source) throws IOException {
-        return decompile(new FileInputStream(cls_path.toFile()), source);
+        return decompile(Files.readAllBytes(cls_path), source);
     }
 
     /**
      * Decompiles the class file at the given file.
      */
     default TypeEntry decompile(File cls_path, SourceSet source) throws IOException {
-        return decompile(new FileInputStream(cls_path), source);
+        return decompile(cls_path.toPath(), source);
+    }
+
+    /**
+     * Decompiles the class file in the given array.
+     */
+    default TypeEntry decompile(byte[] cls_data, SourceSet source) throws IOException {
+        return decompile(new ByteArrayInputStream(cls_data), source);
     }
 
     /**
@@ -62,4 +70,13 @@ public interface Decompiler {
      */
     TypeEntry decompile(InputStream cls_path, SourceSet source) throws IOException;
 
+    /**
+     * Loads a stub of the class file in the given input stream, holding only
+     * its header, fields and method signatures. Decompilers which cannot load
+     * stubs decompile the full type instead.
+     */
+    default TypeEntry decompileStub(InputStream cls_data, SourceSet source) throws IOException {
+        return decompile(cls_data, source);
+    }
+
 }
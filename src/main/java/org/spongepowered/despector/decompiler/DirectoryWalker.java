@@ -25,9 +25,12 @@
 package org.spongepowered.despector.decompiler;
 
 import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.parallel.ClassParsePipeline;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 /**
@@ -48,7 +51,16 @@ public class DirectoryWalker {
      */
     public void walk(SourceSet src, Decompiler decomp) throws IOException {
         File dir = this.directory.toFile();
-        visit(dir, src, decomp);
+        if (LibraryConfiguration.parallel && decomp instanceof BaseDecompiler) {
+            ClassParsePipeline pipeline = new ClassParsePipeline(src, decomp, LibraryConfiguration.getWorkerCount());
+            try {
+                visit(dir, decomp, pipeline);
+            } finally {
+                pipeline.finish();
+            }
+        } else {
+            visit(dir, src, decomp);
+        }
     }
 
     private void visit(File file, SourceSet src, Decompiler decomp) throws IOException {
@@ -66,4 +78,19 @@ public class DirectoryWalker {
         }
     }
 
+    private void visit(File file, Decompiler decomp, ClassParsePipeline pipeline) throws IOException {
+        if (file.isDirectory()) {
+            for (File f : file.listFiles()) {
+                visit(f, decomp, pipeline);
+            }
+        } else {
+            if (decomp.isValid(file.getName())) {
+                pipeline.submit(Files.readAllBytes(file.toPath()));
+            } else if (file.getName().endsWith(".jar")) {
+                JarWalker walker = new JarWalker(file.toPath());
+                walker.walk(pipeline);
+            }
+        }
+    }
+
 }
@@ -24,14 +24,31 @@
  */
 package org.spongepowered.despector.decompiler;
 
+import com.google.common.io.ByteStreams;
 import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.parallel.ClassParsePipeline;
+import org.spongepowered.despector.parallel.ClassParsePipeline.ClassData;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
 import java.nio.file.Path;
-import java.util.jar.JarInputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.annotation.Nullable;
 
 /**
  * Walks a jar file to produce an ast. Steps such as associating overriding
@@ -40,6 +57,7 @@ import java.util.zip.ZipEntry;
 public class JarWalker {
 
     private final Path jar;
+    @Nullable private GroupFilter filter;
 
     /**
      * Creates a new jar walker.
@@ -48,37 +66,229 @@ public class JarWalker {
         this.jar = jar;
     }
 
+    /**
+     * Sets the filter which decides which top level types are decompiled when
+     * walking this jar in windows. Types which are rejected by the filter are
+     * only loaded as stubs, but still take their place in a window so that the
+     * windows do not depend on which types the filter accepts.
+     */
+    public void setFilter(@Nullable GroupFilter filter) {
+        this.filter = filter;
+    }
+
     /**
      * Produces a new obfuscated source set for this version.
      */
     public void walk(SourceSet sources, Decompiler decomp) {
-        scanJar(this.jar, sources, decomp);
+        if (LibraryConfiguration.parallel && decomp instanceof BaseDecompiler) {
+            ClassParsePipeline pipeline = new ClassParsePipeline(sources, decomp, LibraryConfiguration.getWorkerCount());
+            try {
+                scanJar(this.jar, pipeline);
+            } finally {
+                pipeline.finish();
+            }
+        } else {
+            scanJar(this.jar, sources, decomp);
+        }
     }
 
-    private void scanJar(Path path, SourceSet src, Decompiler decomp) {
-        try (JarInputStream jar = new JarInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
-            ZipEntry entry = jar.getNextEntry();
-            if (entry == null) {
-                return;
-            }
-            do {
-                if (entry.isDirectory()) {
-                    continue;
+    /**
+     * Reads all class files in this jar and submits them to the given pipeline
+     * to be parsed.
+     */
+    public void walk(ClassParsePipeline pipeline) {
+        scanJar(this.jar, pipeline);
+    }
+
+    /**
+     * Walks this jar in windows of top level types rather than loading the
+     * entire jar at once.
+     * 
+     * <p>Each window holds up to the given number of top level types along
+     * with all of their inner and anonymous classes. Once a window has been
+     * fully decompiled the types are passed to the given consumer, after which
+     * their method bodies are released so that the memory used is bounded by
+     * the size of the window rather than the size of the jar.</p>
+     * 
+     * <p>Types in windows which have not yet been reached are not available for
+     * lookups from the source set while earlier windows are consumed.</p>
+     */
+    public void walk(SourceSet sources, Decompiler decomp, int window, Consumer<List<TypeEntry>> consumer) throws IOException {
+        ClassParsePipeline pipeline = null;
+        if (LibraryConfiguration.parallel && decomp instanceof BaseDecompiler) {
+            pipeline = new ClassParsePipeline(sources, decomp, LibraryConfiguration.getWorkerCount());
+        }
+        try (ZipFile zip = new ZipFile(this.jar.toFile())) {
+            Map<String, List<ZipEntry>> groups = groupByTopLevelType(zip);
+            List<ClassData> pending = new ArrayList<>();
+            int pending_types = 0;
+            for (Map.Entry<String, List<ZipEntry>> group : groups.entrySet()) {
+                if (this.filter != null) {
+                    // the filter sees the class files in a fixed order so that
+                    // it does not depend on the layout of the jar
+                    List<ZipEntry> entries = new ArrayList<>(group.getValue());
+                    entries.sort(Comparator.comparing(ZipEntry::getName));
+                    List<byte[]> class_files = new ArrayList<>(entries.size());
+                    for (ZipEntry entry : entries) {
+                        class_files.add(readEntry(zip, entry));
+                    }
+                    if (!this.filter.shouldDecompile(group.getKey(), class_files)) {
+                        for (byte[] data : class_files) {
+                            if (decomp instanceof BaseDecompiler) {
+                                ((BaseDecompiler) decomp).decompileStub(data, sources);
+                            } else {
+                                decomp.decompileStub(new ByteArrayInputStream(data), sources);
+                            }
+                        }
+                    } else {
+                        for (byte[] data : class_files) {
+                            pending.add(() -> data);
+                        }
+                    }
+                } else {
+                    for (ZipEntry entry : group.getValue()) {
+                        pending.add(() -> readEntry(zip, entry));
+                    }
                 }
-                final String name = entry.getName();
-                if (!name.endsWith(".class")) {
-                    continue;
+                pending_types++;
+                if (pending_types >= window) {
+                    decompileWindow(pending, sources, decomp, pipeline, consumer);
+                    pending.clear();
+                    pending_types = 0;
                 }
-                scanClassFile(jar, src, decomp);
-            } while ((entry = jar.getNextEntry()) != null);
+            }
+            if (pending_types > 0) {
+                decompileWindow(pending, sources, decomp, pipeline, consumer);
+            }
+        } finally {
+            if (pipeline != null) {
+                pipeline.finish();
+            }
+        }
+    }
+
+    private static Map<String, List<ZipEntry>> groupByTopLevelType(ZipFile zip) {
+        Set<String> names = new HashSet<>();
+        List<ZipEntry> entries = getClassEntries(zip);
+        for (ZipEntry entry : entries) {
+            names.add(entry.getName().substring(0, entry.getName().length() - 6));
+        }
+        Map<String, List<ZipEntry>> groups = new LinkedHashMap<>();
+        for (ZipEntry entry : entries) {
+            String name = entry.getName().substring(0, entry.getName().length() - 6);
+            String top_level = name;
+            int outer = name.indexOf('$', name.lastIndexOf('/') + 1);
+            while (outer > 0) {
+                if (names.contains(name.substring(0, outer))) {
+                    top_level = name.substring(0, outer);
+                    break;
+                }
+                outer = name.indexOf('$', outer + 1);
+            }
+            List<ZipEntry> group = groups.get(top_level);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(top_level, group);
+            }
+            group.add(entry);
+        }
+        return groups;
+    }
+
+    private static void decompileWindow(List<ClassData> entries, SourceSet src, Decompiler decomp, @Nullable ClassParsePipeline pipeline,
+            Consumer<List<TypeEntry>> consumer) throws IOException {
+        List<TypeEntry> types = new ArrayList<>();
+        for (ClassData entry : entries) {
+            if (pipeline != null) {
+                pipeline.submit(entry);
+            } else {
+                types.add(decomp.decompile(entry.read(), src));
+            }
+        }
+        if (pipeline != null) {
+            types.addAll(pipeline.drain());
+        }
+        if (decomp instanceof BaseDecompiler) {
+            ((BaseDecompiler) decomp).flushTasks();
+        }
+        consumer.accept(types);
+        for (TypeEntry type : types) {
+            for (MethodEntry method : type.getMethods()) {
+                method.setInstructions(null);
+                method.setIR(null);
+            }
+            for (MethodEntry method : type.getStaticMethods()) {
+                method.setInstructions(null);
+                method.setIR(null);
+            }
+        }
+    }
+
+    private void scanJar(Path path, SourceSet src, Decompiler decomp) {
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            for (ZipEntry entry : getClassEntries(zip)) {
+                decomp.decompile(readEntry(zip, entry), src);
+            }
         } catch (IOException e) {
             e.printStackTrace();
             return;
         }
     }
 
-    private void scanClassFile(JarInputStream input, SourceSet src, Decompiler decomp) throws IOException {
-        decomp.decompile(input, src);
+    private void scanJar(Path path, ClassParsePipeline pipeline) {
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            // entries are inflated by the parser threads as they take them so
+            // that reading the jar overlaps with parsing
+            for (ZipEntry entry : getClassEntries(zip)) {
+                pipeline.submit(() -> readEntry(zip, entry));
+            }
+            // the zip must stay open until every entry has been read
+            pipeline.await();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static List<ZipEntry> getClassEntries(ZipFile zip) {
+        List<ZipEntry> entries = new ArrayList<>();
+        Enumeration<? extends ZipEntry> it = zip.entries();
+        while (it.hasMoreElements()) {
+            ZipEntry entry = it.nextElement();
+            if (!entry.isDirectory() && entry.getName().endsWith(".class")) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Reads and inflates the given entry of the zip. This may be called from
+     * several threads at once.
+     */
+    private static byte[] readEntry(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            long size = entry.getSize();
+            if (size < 0 || size > Integer.MAX_VALUE) {
+                return ByteStreams.toByteArray(in);
+            }
+            byte[] data = new byte[(int) size];
+            ByteStreams.readFully(in, data);
+            return data;
+        }
+    }
+
+    /**
+     * A filter deciding whether a top level type is decompiled.
+     */
+    public static interface GroupFilter {
+
+        /**
+         * Gets if the top level type with the given name, whose class files
+         * and those of its inner classes are given sorted by name, should be
+         * decompiled rather than only loaded as a stub.
+         */
+        boolean shouldDecompile(String name, List<byte[]> class_files) throws IOException;
+
     }
 
 }
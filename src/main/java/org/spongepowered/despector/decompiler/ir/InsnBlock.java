@@ -24,36 +24,475 @@
  */
 package org.spongepowered.despector.decompiler.ir;
 
+import org.spongepowered.despector.ast.stmt.invoke.InstanceMethodInvoke;
 import org.spongepowered.despector.decompiler.method.PartialMethod.TryCatchRegion;
+import org.spongepowered.despector.decompiler.method.StackMapTable;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 
+import javax.annotation.Nullable;
+
+/**
+ * A block of IR instructions.
+ *
+ * <p>Instructions are stored as parallel arrays of opcodes and int operands,
+ * with reference operands held in a side table, so that no object is
+ * allocated per instruction. Readers which only need opcodes and operands
+ * should use the indexed accessors such as {@link #getOpcode(int)}. The
+ * {@link Insn} returned by {@link #get(int)} is a read-only view which is
+ * created on demand, or shared for instructions without operands and for
+ * loads, stores and constants of small ints.</p>
+ */
 public class InsnBlock implements Iterable<Insn> {
 
-    private final List<Insn> instructions;
+    private static final byte KIND_OP = 0;
+    private static final byte KIND_INT = 1;
+    private static final byte KIND_LONG = 2;
+    private static final byte KIND_FLOAT = 3;
+    private static final byte KIND_DOUBLE = 4;
+    private static final byte KIND_VAR_INT = 5;
+    private static final byte KIND_JUMP = 6;
+    private static final byte KIND_LDC = 7;
+    private static final byte KIND_TYPE = 8;
+    private static final byte KIND_TYPE_INT = 9;
+    private static final byte KIND_FIELD = 10;
+    private static final byte KIND_INVOKE = 11;
+    private static final byte KIND_INVOKE_DYNAMIC = 12;
+    private static final byte KIND_SWITCH = 13;
+    private static final byte KIND_OTHER = 14;
+
+    private static final int SHARED_MIN = -1;
+    private static final int SHARED_MAX = 15;
+    private static final OpInsn[] SHARED_OPS = new OpInsn[Byte.MAX_VALUE + 1];
+    private static final IntInsn[][] SHARED_INTS = new IntInsn[Byte.MAX_VALUE + 1][];
+
+    static {
+        for (int i = 0; i < SHARED_OPS.length; i++) {
+            SHARED_OPS[i] = new OpInsn(i);
+        }
+        for (int op : new int[] {Insn.ICONST, Insn.LOCAL_LOAD, Insn.LOCAL_STORE}) {
+            IntInsn[] values = new IntInsn[SHARED_MAX - SHARED_MIN + 1];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = new IntInsn(op, i + SHARED_MIN);
+            }
+            SHARED_INTS[op] = values;
+        }
+    }
+
+    private byte[] kinds;
+    private byte[] opcodes;
+    private int[] operands;
+    @Nullable private int[] extras;
+    @Nullable private Object[] refs;
+    private int size;
+    private int ref_count;
+
     private int[] op_indices;
     private List<TryCatchRegion> catch_regions = new ArrayList<>();
+    @Nullable private StackMapTable stack_map;
 
     public InsnBlock() {
-        this.instructions = new ArrayList<>();
+        this(16);
+    }
+
+    /**
+     * Creates a new block with room for the given number of instructions.
+     */
+    public InsnBlock(int capacity) {
+        this.kinds = new byte[capacity];
+        this.opcodes = new byte[capacity];
+        this.operands = new int[capacity];
+    }
+
+    private InsnBlock(byte[] kinds, byte[] opcodes, int[] operands) {
+        this.kinds = kinds;
+        this.opcodes = opcodes;
+        this.operands = operands;
     }
 
     public int size() {
-        return this.instructions.size();
+        return this.size;
     }
 
+    /**
+     * Gets a view of the instruction at the given index. Changes to the
+     * returned instruction are not reflected in this block.
+     */
     public Insn get(int i) {
-        return this.instructions.get(i);
+        checkIndex(i);
+        int op = this.opcodes[i];
+        int operand = this.operands[i];
+        switch (this.kinds[i]) {
+        case KIND_OP:
+            return SHARED_OPS[op];
+        case KIND_INT:
+            if (SHARED_INTS[op] != null && operand >= SHARED_MIN && operand <= SHARED_MAX) {
+                return SHARED_INTS[op][operand - SHARED_MIN];
+            }
+            return new IntInsn(op, operand);
+        case KIND_LONG:
+            return new LongInsn(op, getLongOperand(i));
+        case KIND_FLOAT:
+            return new FloatInsn(op, Float.intBitsToFloat(operand));
+        case KIND_DOUBLE:
+            return new DoubleInsn(op, Double.longBitsToDouble(getLongOperand(i)));
+        case KIND_VAR_INT:
+            return new VarIntInsn(op, operand, extra(i));
+        case KIND_JUMP:
+            return new JumpInsn(op, operand);
+        case KIND_LDC:
+            return new LdcInsn(op, getReference(i, 0));
+        case KIND_TYPE:
+            return new TypeInsn(op, (String) getReference(i, 0));
+        case KIND_TYPE_INT:
+            return new TypeIntInsn(op, (String) getReference(i, 0), operand);
+        case KIND_FIELD:
+            return new FieldInsn(op, (String) getReference(i, 0), (String) getReference(i, 1), (String) getReference(i, 2));
+        case KIND_INVOKE:
+            return new InvokeInsn(op, (InstanceMethodInvoke.Type) getReference(i, 0), (String) getReference(i, 1), (String) getReference(i, 2),
+                    (String) getReference(i, 3));
+        case KIND_INVOKE_DYNAMIC:
+            return new InvokeDynamicInsn(op, (String) getReference(i, 0), (String) getReference(i, 1), (String) getReference(i, 2),
+                    (String) getReference(i, 3), (String) getReference(i, 4), extra(i) != 0);
+        case KIND_SWITCH:
+            return new SwitchInsn(op, getSwitchTargets(i), operand);
+        default:
+            return (Insn) getReference(i, 0);
+        }
+    }
+
+    /**
+     * Gets the opcode of the instruction at the given index.
+     */
+    public int getOpcode(int i) {
+        checkIndex(i);
+        if (this.kinds[i] == KIND_OTHER) {
+            return ((Insn) getReference(i, 0)).getOpcode();
+        }
+        return this.opcodes[i];
+    }
+
+    /**
+     * Gets the int operand of the instruction at the given index. This is the
+     * value of an int constant, the local index of a local load or store or
+     * iinc, the target of a jump, the default target of a switch, the
+     * dimensions of a multi new array, or the raw bits of a float constant.
+     * The value is undefined for other instructions.
+     */
+    public int getOperand(int i) {
+        checkIndex(i);
+        return this.operands[i];
+    }
+
+    /**
+     * Sets the int operand of the instruction at the given index.
+     */
+    public void setOperand(int i, int operand) {
+        checkIndex(i);
+        byte kind = this.kinds[i];
+        if (kind >= KIND_LDC && kind != KIND_TYPE_INT && kind != KIND_SWITCH) {
+            throw new IllegalStateException("Instruction " + i + " has no int operand");
+        }
+        this.operands[i] = operand;
+    }
+
+    /**
+     * Gets the increment of the iinc instruction at the given index, or zero
+     * for other instructions.
+     */
+    public int getExtraOperand(int i) {
+        checkIndex(i);
+        return this.kinds[i] == KIND_VAR_INT ? extra(i) : 0;
+    }
+
+    /**
+     * Gets the value of the long or double constant at the given index as raw
+     * bits.
+     */
+    public long getLongOperand(int i) {
+        checkIndex(i);
+        return ((long) extra(i) << 32) | (this.operands[i] & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the reference operand with the given position of the instruction at
+     * the given index. References are held in the order they are passed to the
+     * append methods.
+     */
+    public Object getReference(int i, int n) {
+        checkIndex(i);
+        byte kind = this.kinds[i];
+        int start;
+        if (kind == KIND_TYPE_INT || kind == KIND_SWITCH) {
+            start = extra(i);
+        } else if (kind >= KIND_LDC) {
+            start = this.operands[i];
+        } else {
+            throw new IllegalStateException("Instruction " + i + " has no reference operands");
+        }
+        return this.refs[start + n];
+    }
+
+    /**
+     * Gets the mutable map of case values to targets of the switch at the
+     * given index.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Integer, Integer> getSwitchTargets(int i) {
+        if (!isSwitch(i)) {
+            throw new IllegalStateException("Instruction " + i + " is not a switch");
+        }
+        return (Map<Integer, Integer>) getReference(i, 0);
     }
 
+    /**
+     * Gets if the instruction at the given index is a jump.
+     */
+    public boolean isJump(int i) {
+        checkIndex(i);
+        return this.kinds[i] == KIND_JUMP;
+    }
+
+    /**
+     * Gets if the instruction at the given index is a switch.
+     */
+    public boolean isSwitch(int i) {
+        checkIndex(i);
+        return this.kinds[i] == KIND_SWITCH;
+    }
+
+    /**
+     * Appends the given instruction.
+     */
     public void append(Insn insn) {
-        this.instructions.add(insn);
+        int op = insn.getOpcode();
+        if (op < 0 || op > Byte.MAX_VALUE) {
+            add(KIND_OTHER, 0, addRef(insn), 0);
+        } else if (insn instanceof OpInsn) {
+            appendOp(op);
+        } else if (insn instanceof IntInsn) {
+            appendInt(op, ((IntInsn) insn).getValue());
+        } else if (insn instanceof LongInsn) {
+            appendLong(op, ((LongInsn) insn).getValue());
+        } else if (insn instanceof FloatInsn) {
+            appendFloat(op, ((FloatInsn) insn).getValue());
+        } else if (insn instanceof DoubleInsn) {
+            appendDouble(op, ((DoubleInsn) insn).getValue());
+        } else if (insn instanceof VarIntInsn) {
+            appendVarInt(op, ((VarIntInsn) insn).getLocal(), ((VarIntInsn) insn).getValue());
+        } else if (insn instanceof JumpInsn) {
+            appendJump(op, ((JumpInsn) insn).getTarget());
+        } else if (insn instanceof LdcInsn) {
+            appendLdc(op, ((LdcInsn) insn).getConstant());
+        } else if (insn instanceof TypeInsn) {
+            appendType(op, ((TypeInsn) insn).getType());
+        } else if (insn instanceof TypeIntInsn) {
+            appendTypeInt(op, ((TypeIntInsn) insn).getType(), ((TypeIntInsn) insn).getValue());
+        } else if (insn instanceof FieldInsn) {
+            FieldInsn field = (FieldInsn) insn;
+            appendField(op, field.getOwner(), field.getName(), field.getDescription());
+        } else if (insn instanceof InvokeInsn) {
+            InvokeInsn invoke = (InvokeInsn) insn;
+            appendInvoke(op, invoke.getType(), invoke.getOwner(), invoke.getName(), invoke.getDescription());
+        } else if (insn instanceof InvokeDynamicInsn) {
+            InvokeDynamicInsn indy = (InvokeDynamicInsn) insn;
+            appendInvokeDynamic(op, indy.getLambdaOwner(), indy.getLambdaName(), indy.getLambdaDescription(), indy.getName(), indy.getType(),
+                    indy.isInterface());
+        } else if (insn instanceof SwitchInsn) {
+            appendSwitch(op, ((SwitchInsn) insn).getTargets(), ((SwitchInsn) insn).getDefault());
+        } else {
+            add(KIND_OTHER, op, addRef(insn), 0);
+        }
+    }
+
+    public void appendOp(int op) {
+        add(KIND_OP, op, 0, 0);
+    }
+
+    public void appendInt(int op, int value) {
+        add(KIND_INT, op, value, 0);
+    }
+
+    public void appendLong(int op, long value) {
+        add(KIND_LONG, op, (int) value, (int) (value >>> 32));
+    }
+
+    public void appendFloat(int op, float value) {
+        add(KIND_FLOAT, op, Float.floatToRawIntBits(value), 0);
+    }
+
+    public void appendDouble(int op, double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        add(KIND_DOUBLE, op, (int) bits, (int) (bits >>> 32));
+    }
+
+    public void appendVarInt(int op, int local, int value) {
+        add(KIND_VAR_INT, op, local, value);
+    }
+
+    public void appendJump(int op, int target) {
+        add(KIND_JUMP, op, target, 0);
+    }
+
+    public void appendLdc(int op, Object cst) {
+        add(KIND_LDC, op, addRef(cst), 0);
+    }
+
+    public void appendType(int op, String type) {
+        add(KIND_TYPE, op, addRef(type), 0);
+    }
+
+    public void appendTypeInt(int op, String type, int value) {
+        add(KIND_TYPE_INT, op, value, addRef(type));
+    }
+
+    public void appendField(int op, String owner, String name, String desc) {
+        int start = addRef(owner);
+        addRef(name);
+        addRef(desc);
+        add(KIND_FIELD, op, start, 0);
+    }
+
+    public void appendInvoke(int op, InstanceMethodInvoke.Type type, String owner, String name, String desc) {
+        int start = addRef(type);
+        addRef(owner);
+        addRef(name);
+        addRef(desc);
+        add(KIND_INVOKE, op, start, 0);
+    }
+
+    public void appendInvokeDynamic(int op, String lambda_owner, String lambda_name, String lambda_desc, String name, String type,
+            boolean intr) {
+        int start = addRef(lambda_owner);
+        addRef(lambda_name);
+        addRef(lambda_desc);
+        addRef(name);
+        addRef(type);
+        add(KIND_INVOKE_DYNAMIC, op, start, intr ? 1 : 0);
+    }
+
+    public void appendSwitch(int op, Map<Integer, Integer> targets, int dflt) {
+        add(KIND_SWITCH, op, dflt, addRef(targets));
     }
 
+    private void add(byte kind, int op, int operand, int extra) {
+        if (op < 0 || op > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Opcode out of range: " + op);
+        }
+        int capacity = this.opcodes.length;
+        if (this.size == capacity) {
+            capacity = Math.max(capacity * 2, 4);
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.opcodes = Arrays.copyOf(this.opcodes, capacity);
+            this.operands = Arrays.copyOf(this.operands, capacity);
+            if (this.extras != null) {
+                this.extras = Arrays.copyOf(this.extras, capacity);
+            }
+        }
+        this.kinds[this.size] = kind;
+        this.opcodes[this.size] = (byte) op;
+        this.operands[this.size] = operand;
+        if (extra != 0 || kind == KIND_TYPE_INT || kind == KIND_SWITCH) {
+            // the second operand is rarely used so it is only allocated once
+            // an instruction needs it
+            if (this.extras == null) {
+                this.extras = new int[capacity];
+            }
+            this.extras[this.size] = extra;
+        }
+        this.size++;
+    }
+
+    private int addRef(Object ref) {
+        if (this.refs == null) {
+            this.refs = new Object[Math.max(this.opcodes.length / 2, 4)];
+        } else if (this.ref_count == this.refs.length) {
+            this.refs = Arrays.copyOf(this.refs, this.ref_count * 2);
+        }
+        this.refs[this.ref_count] = ref;
+        return this.ref_count++;
+    }
+
+    /**
+     * Creates a copy of the instructions of this block with no spare capacity.
+     * The catch regions and opcode indices are not copied.
+     */
+    public InsnBlock compact() {
+        InsnBlock copy = new InsnBlock(Arrays.copyOf(this.kinds, this.size), Arrays.copyOf(this.opcodes, this.size),
+                Arrays.copyOf(this.operands, this.size));
+        if (this.extras != null) {
+            copy.extras = Arrays.copyOf(this.extras, this.size);
+        }
+        if (this.ref_count > 0) {
+            copy.refs = Arrays.copyOf(this.refs, this.ref_count);
+        }
+        copy.size = this.size;
+        copy.ref_count = this.ref_count;
+        return copy;
+    }
+
+    /**
+     * Removes all instructions and catch regions from this block, keeping its
+     * capacity.
+     */
+    public void clear() {
+        if (this.refs != null) {
+            Arrays.fill(this.refs, 0, this.ref_count, null);
+        }
+        if (this.extras != null) {
+            Arrays.fill(this.extras, 0, this.size, 0);
+        }
+        this.size = 0;
+        this.ref_count = 0;
+        this.catch_regions.clear();
+        this.op_indices = null;
+        this.stack_map = null;
+    }
+
+    private int extra(int i) {
+        return this.extras == null ? 0 : this.extras[i];
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + this.size);
+        }
+    }
+
+    /**
+     * Gets a read-only list view of the instructions of this block.
+     */
     public List<Insn> getInstructions() {
-        return this.instructions;
+        return new AbstractList<Insn>() {
+
+            @Override
+            public Insn get(int index) {
+                return InsnBlock.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return InsnBlock.this.size;
+            }
+
+        };
+    }
+
+    /**
+     * Gets a list of the instructions between the given indices, as a
+     * {@link Range}.
+     */
+    public Range range(int from, int to) {
+        if (from < 0 || to > this.size || from > to) {
+            throw new IndexOutOfBoundsException("Range: " + from + " to " + to + ", Size: " + this.size);
+        }
+        return new Range(this, from, to);
     }
 
     public int[] getOpcodeIndices() {
@@ -68,10 +507,23 @@ public class InsnBlock implements Iterable<Insn> {
         return this.catch_regions;
     }
 
+    /**
+     * Gets the stack map frames of this block, or null if the method had no
+     * StackMapTable attribute.
+     */
+    @Nullable
+    public StackMapTable getStackMap() {
+        return this.stack_map;
+    }
+
+    public void setStackMap(@Nullable StackMapTable stack_map) {
+        this.stack_map = stack_map;
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder();
-        for (Insn insn : this.instructions) {
+        for (Insn insn : this) {
             str.append(" ").append(insn).append("\n");
         }
         return str.toString();
@@ -82,18 +534,134 @@ public class InsnBlock implements Iterable<Insn> {
         return new Itr();
     }
 
+    /**
+     * A list of a range of the instructions of a block. Until it is first
+     * modified the range reads from the block, and callers may use
+     * {@link #getBlock()} and {@link #getStart()} to read instructions through
+     * the indexed accessors of the block without creating views. The first
+     * modification copies the views of the range into a private list.
+     */
+    public static class Range extends AbstractList<Insn> implements RandomAccess {
+
+        private final InsnBlock block;
+        private final int start;
+        private final int end;
+        @Nullable private List<Insn> copy;
+
+        Range(InsnBlock block, int start, int end) {
+            this.block = block;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Gets the given list as a range if it is one which has not been
+         * modified, or null otherwise.
+         */
+        @Nullable
+        public static Range unmodified(List<Insn> opcodes) {
+            if (opcodes instanceof Range && ((Range) opcodes).copy == null) {
+                return (Range) opcodes;
+            }
+            return null;
+        }
+
+        /**
+         * Gets a new list of the instructions between the given indices of
+         * the given list. This is a range of the same block if the list is an
+         * unmodified range.
+         */
+        public static List<Insn> slice(List<Insn> opcodes, int from, int to) {
+            Range range = unmodified(opcodes);
+            if (range != null) {
+                if (from < 0 || to > range.size() || from > to) {
+                    throw new IndexOutOfBoundsException("Range: " + from + " to " + to + ", Size: " + range.size());
+                }
+                return new Range(range.block, range.start + from, range.start + to);
+            }
+            return new ArrayList<>(opcodes.subList(from, to));
+        }
+
+        /**
+         * Gets the block this range reads from. The block only reflects the
+         * contents of this range while it is {@link #unmodified unmodified}.
+         */
+        public InsnBlock getBlock() {
+            return this.block;
+        }
+
+        /**
+         * Gets the index in the block of the first instruction of this
+         * range.
+         */
+        public int getStart() {
+            return this.start;
+        }
+
+        @Override
+        public Insn get(int index) {
+            if (this.copy != null) {
+                return this.copy.get(index);
+            }
+            if (index < 0 || index >= this.end - this.start) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (this.end - this.start));
+            }
+            return this.block.get(this.start + index);
+        }
+
+        @Override
+        public int size() {
+            if (this.copy != null) {
+                return this.copy.size();
+            }
+            return this.end - this.start;
+        }
+
+        @Override
+        public Insn set(int index, Insn insn) {
+            return copy().set(index, insn);
+        }
+
+        @Override
+        public void add(int index, Insn insn) {
+            copy().add(index, insn);
+        }
+
+        @Override
+        public Insn remove(int index) {
+            return copy().remove(index);
+        }
+
+        @Override
+        public void clear() {
+            this.copy = new ArrayList<>();
+        }
+
+        private List<Insn> copy() {
+            if (this.copy == null) {
+                List<Insn> copy = new ArrayList<>(this.end - this.start + 1);
+                for (int i = this.start; i < this.end; i++) {
+                    copy.add(this.block.get(i));
+                }
+                this.copy = copy;
+            }
+            return this.copy;
+        }
+
+    }
+
     public class Itr implements Iterator<Insn> {
 
         private int index;
 
         @Override
         public boolean hasNext() {
-            return InsnBlock.this.getInstructions().size() > this.index;
+            return InsnBlock.this.size > this.index;
         }
 
         @Override
         public Insn next() {
-            return InsnBlock.this.getInstructions().get(this.index++);
+            return InsnBlock.this.get(this.index++);
         }
 
     }
@@ -31,6 +31,7 @@ import org.spongepowered.despector.ast.insn.condition.Condition;
 import org.spongepowered.despector.decompiler.kotlin.method.graph.data.WhenBlockSection;
 import org.spongepowered.despector.decompiler.kotlin.method.graph.data.WhenBlockSection.WhenCondition;
 import org.spongepowered.despector.decompiler.method.ConditionBuilder;
+import org.spongepowered.despector.decompiler.method.MethodBudget;
 import org.spongepowered.despector.decompiler.method.PartialMethod;
 import org.spongepowered.despector.decompiler.method.graph.GraphOperation;
 import org.spongepowered.despector.decompiler.method.graph.data.TryCatchMarkerType;
@@ -78,6 +79,7 @@ public class KotlinTernaryPrePassOperation implements GraphOperation {
     }
 
     private static int compileTernary(List<OpcodeBlock> blocks, int end, Locals locals) {
+        MethodBudget.step();
         if (end < 4) {
             return 0;
         }
@@ -27,7 +27,6 @@ package org.spongepowered.despector.decompiler.kotlin.method.special;
 import org.spongepowered.despector.ast.Locals;
 import org.spongepowered.despector.decompiler.ir.Insn;
 import org.spongepowered.despector.decompiler.ir.InsnBlock;
-import org.spongepowered.despector.decompiler.ir.IntInsn;
 import org.spongepowered.despector.decompiler.method.PartialMethod;
 import org.spongepowered.despector.decompiler.method.special.LocalsProcessor;
 
@@ -169,10 +168,8 @@ public class KotlinLocalsProcessor implements LocalsProcessor {
     public static int lastRead(InsnBlock ops, int start, int end, int local) {
 
         for (int i = end - 1; i >= start; i--) {
-            Insn next = ops.get(i);
-            if (next.getOpcode() == Insn.LOCAL_LOAD) {
-                IntInsn node = (IntInsn) next;
-                if (node.getValue() == local) {
+            if (ops.getOpcode(i) == Insn.LOCAL_LOAD) {
+                if (ops.getOperand(i) == local) {
                     return i;
                 }
             }
@@ -187,10 +184,8 @@ public class KotlinLocalsProcessor implements LocalsProcessor {
     public static int nextMod(InsnBlock ops, int start, int local) {
 
         for (int i = start; i < ops.size(); i++) {
-            Insn next = ops.get(i);
-            if (next.getOpcode() == Insn.LOCAL_STORE) {
-                IntInsn node = (IntInsn) next;
-                if (node.getValue() == local) {
+            if (ops.getOpcode(i) == Insn.LOCAL_STORE) {
+                if (ops.getOperand(i) == local) {
                     return i;
                 }
             }
@@ -24,22 +24,44 @@
  */
 package org.spongepowered.despector.decompiler.loader;
 
-import com.google.common.base.Charsets;
+import org.spongepowered.despector.ast.SymbolTable;
 import org.spongepowered.despector.decompiler.error.SourceFormatException;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 
+import javax.annotation.Nullable;
+
+/**
+ * The constant pool of a class file.
+ *
+ * <p>Entries are resolved lazily, strings are only decoded and references to
+ * other entries only followed when an entry is first requested. Resolution is
+ * idempotent so a pool may be shared by threads decompiling the methods of the
+ * same class.</p>
+ */
 public class ClassConstantPool {
 
     private static final boolean DUMP_CONSTANT_POOL = Boolean.getBoolean("despect.debug.jvm.dump_constant_pool");
 
     private Entry[] values;
+    @Nullable private final SymbolTable symbols;
 
     public ClassConstantPool() {
+        this(null);
+    }
+
+    /**
+     * Creates a new constant pool which interns the names and descriptors
+     * that it decodes in the given symbol table.
+     */
+    public ClassConstantPool(@Nullable SymbolTable symbols) {
+        this.symbols = symbols;
     }
 
-    public void load(DataInputStream data) throws IOException {
+    /**
+     * Loads the constant pool from the given class file data.
+     */
+    public void load(ClassFileReader data) throws IOException {
         int entry_count = data.readUnsignedShort();
 
         this.values = new Entry[entry_count - 1];
@@ -50,23 +72,18 @@ public class ClassConstantPool {
             switch (type) {
             case UTF8: {
                 Utf8Entry u = new Utf8Entry();
-                int len = data.readUnsignedShort();
-                byte[] bytes = new byte[len];
-                int offs = 0;
-                while (len > 0) {
-                    int read = data.read(bytes, offs, len);
-                    len -= read;
-                    offs += read;
-                }
-                u.value = new String(bytes, Charsets.UTF_8);
+                u.length = data.readUnsignedShort();
+                u.offset = data.skipBytes(u.length);
+                u.data = data.getData();
                 this.values[i] = u;
                 if (DUMP_CONSTANT_POOL) {
-                    System.out.println(i + ": Utf8 " + u.value);
+                    System.out.println(i + ": Utf8 " + ClassFileReader.decodeModifiedUtf8(u.data, u.offset, u.length));
                 }
                 break;
             }
             case INTEGER: {
                 IntEntry c = new IntEntry();
+                c.resolved = true;
                 c.value = data.readInt();
                 this.values[i] = c;
                 if (DUMP_CONSTANT_POOL) {
@@ -76,6 +93,7 @@ public class ClassConstantPool {
             }
             case FLOAT: {
                 FloatEntry c = new FloatEntry();
+                c.resolved = true;
                 c.value = data.readFloat();
                 this.values[i] = c;
                 if (DUMP_CONSTANT_POOL) {
@@ -85,6 +103,7 @@ public class ClassConstantPool {
             }
             case LONG: {
                 LongEntry c = new LongEntry();
+                c.resolved = true;
                 long l = ((long) data.readInt() << 32);
                 l |= data.readInt();
                 c.value = l;
@@ -96,6 +115,7 @@ public class ClassConstantPool {
             }
             case DOUBLE: {
                 DoubleEntry c = new DoubleEntry();
+                c.resolved = true;
                 long l = ((long) data.readInt() << 32);
                 l |= data.readInt();
                 c.value = Double.longBitsToDouble(l);
@@ -165,6 +185,7 @@ public class ClassConstantPool {
             }
             case METHOD_HANDLE: {
                 MethodHandleEntry h = new MethodHandleEntry();
+                h.resolved = true;
                 h.kind = data.readByte();
                 h.reference_index = data.readUnsignedShort();
                 this.values[i] = h;
@@ -200,84 +221,26 @@ public class ClassConstantPool {
                 i++;
             }
         }
-
-        // bake references
-        for (int i = 0; i < entry_count - 1; i++) {
-            Entry e = this.values[i];
-            if (e == null) {
-                continue;
-            }
-            switch (e.type) {
-            case UTF8:
-            case INTEGER:
-            case FLOAT:
-                break;
-            case LONG:
-            case DOUBLE:
-                i++;
-                break;
-            case CLASS: {
-                ClassEntry c = (ClassEntry) e;
-                c.name = getUtf8(c.name_index);
-                break;
-            }
-            case STRING: {
-                StringEntry c = (StringEntry) e;
-                c.value = getUtf8(c.value_index);
-                break;
-            }
-            case FIELD_REF: {
-                FieldRefEntry f = (FieldRefEntry) e;
-                f.cls = getUtf8(getClass(f.class_index).name_index);
-                f.name = getUtf8(getNameAndType(f.name_and_type_index).name_index);
-                f.type_name = getUtf8(getNameAndType(f.name_and_type_index).type_index);
-                break;
-            }
-            case METHOD_REF: {
-                MethodRefEntry f = (MethodRefEntry) e;
-                f.cls = getUtf8(getClass(f.class_index).name_index);
-                f.name = getUtf8(getNameAndType(f.name_and_type_index).name_index);
-                f.type_name = getUtf8(getNameAndType(f.name_and_type_index).type_index);
-                break;
-            }
-            case INTERFACE_METHOD_REF: {
-                MethodRefEntry f = (MethodRefEntry) e;
-                f.cls = getUtf8(getClass(f.class_index).name_index);
-                f.name = getUtf8(getNameAndType(f.name_and_type_index).name_index);
-                f.type_name = getUtf8(getNameAndType(f.name_and_type_index).type_index);
-                break;
-            }
-            case NAME_AND_TYPE: {
-                NameAndTypeEntry n = (NameAndTypeEntry) e;
-                n.name = getUtf8(n.name_index);
-                n.type_name = getUtf8(n.type_index);
-                break;
-            }
-            case METHOD_HANDLE:
-                break;
-            case METHOD_TYPE: {
-                MethodTypeEntry t = (MethodTypeEntry) e;
-                t.desc = getUtf8(t.desc_index);
-                break;
-            }
-            case INVOKE_DYNAMIC: {
-                InvokeDynamicEntry f = (InvokeDynamicEntry) e;
-                f.name = getUtf8(getNameAndType(f.name_and_type_index).name_index);
-                f.type_name = getUtf8(getNameAndType(f.name_and_type_index).type_index);
-                break;
-            }
-            default:
-                throw new SourceFormatException("Illegal tag in constant pool");
-            }
-        }
     }
 
     public Entry getEntry(int index) {
-        return this.values[index - 1];
+        return resolve(this.values[index - 1]);
     }
 
+    /**
+     * Gets the utf8 entry at the given index as a symbol, interned in the
+     * symbol table of this pool if it has one.
+     */
     public String getUtf8(int index) {
-        return ((Utf8Entry) this.values[index - 1]).value;
+        Utf8Entry u = (Utf8Entry) this.values[index - 1];
+        String value = decode(u);
+        if (this.symbols == null || u.interned) {
+            return value;
+        }
+        value = this.symbols.intern(value);
+        u.value = value;
+        u.interned = true;
+        return value;
     }
 
     public int getInt(int index) {
@@ -297,40 +260,120 @@ public class ClassConstantPool {
     }
 
     public ClassEntry getClass(int index) {
-        return (ClassEntry) this.values[index - 1];
+        return (ClassEntry) resolve(this.values[index - 1]);
     }
 
     public NameAndTypeEntry getNameAndType(int index) {
-        return (NameAndTypeEntry) this.values[index - 1];
+        return (NameAndTypeEntry) resolve(this.values[index - 1]);
     }
 
     public FieldRefEntry getFieldRef(int index) {
-        return (FieldRefEntry) this.values[index - 1];
+        return (FieldRefEntry) resolve(this.values[index - 1]);
     }
 
     public MethodRefEntry getMethodRef(int index) {
-        return (MethodRefEntry) this.values[index - 1];
+        return (MethodRefEntry) resolve(this.values[index - 1]);
     }
 
     public MethodRefEntry getInterfaceMethodRef(int index) {
-        return (MethodRefEntry) this.values[index - 1];
+        return (MethodRefEntry) resolve(this.values[index - 1]);
     }
 
     public MethodHandleEntry getMethodHandle(int index) {
-        return (MethodHandleEntry) this.values[index - 1];
+        return (MethodHandleEntry) resolve(this.values[index - 1]);
     }
 
     public InvokeDynamicEntry getInvokeDynamic(int index) {
-        return (InvokeDynamicEntry) this.values[index - 1];
+        return (InvokeDynamicEntry) resolve(this.values[index - 1]);
+    }
+
+    private Entry resolve(Entry e) {
+        if (e == null || e.resolved) {
+            return e;
+        }
+        switch (e.type) {
+        case UTF8:
+            decode((Utf8Entry) e);
+            break;
+        case CLASS: {
+            ClassEntry c = (ClassEntry) e;
+            c.name = getUtf8(c.name_index);
+            break;
+        }
+        case STRING: {
+            // string constants are values rather than symbols so are not
+            // interned
+            StringEntry c = (StringEntry) e;
+            c.value = decode((Utf8Entry) this.values[c.value_index - 1]);
+            break;
+        }
+        case FIELD_REF: {
+            FieldRefEntry f = (FieldRefEntry) e;
+            NameAndTypeEntry n = getNameAndType(f.name_and_type_index);
+            f.cls = getClass(f.class_index).name;
+            f.name = n.name;
+            f.type_name = n.type_name;
+            break;
+        }
+        case METHOD_REF:
+        case INTERFACE_METHOD_REF: {
+            MethodRefEntry f = (MethodRefEntry) e;
+            NameAndTypeEntry n = getNameAndType(f.name_and_type_index);
+            f.cls = getClass(f.class_index).name;
+            f.name = n.name;
+            f.type_name = n.type_name;
+            break;
+        }
+        case NAME_AND_TYPE: {
+            NameAndTypeEntry n = (NameAndTypeEntry) e;
+            n.name = getUtf8(n.name_index);
+            n.type_name = getUtf8(n.type_index);
+            break;
+        }
+        case METHOD_TYPE: {
+            MethodTypeEntry t = (MethodTypeEntry) e;
+            t.desc = getUtf8(t.desc_index);
+            break;
+        }
+        case INVOKE_DYNAMIC: {
+            InvokeDynamicEntry f = (InvokeDynamicEntry) e;
+            NameAndTypeEntry n = getNameAndType(f.name_and_type_index);
+            f.name = n.name;
+            f.type_name = n.type_name;
+            break;
+        }
+        default:
+            throw new SourceFormatException("Illegal tag in constant pool");
+        }
+        // the resolved fields are written before this volatile write so any
+        // thread which sees the entry as resolved also sees its values
+        e.resolved = true;
+        return e;
+    }
+
+    private static String decode(Utf8Entry u) {
+        String value = u.value;
+        if (value == null) {
+            value = ClassFileReader.decodeModifiedUtf8(u.data, u.offset, u.length);
+            u.value = value;
+        }
+        return value;
     }
 
     public static abstract class Entry {
 
         public EntryType type;
+
+        volatile boolean resolved;
     }
 
     public static class Utf8Entry extends Entry {
 
+        byte[] data;
+        int offset;
+        int length;
+        volatile boolean interned;
+
         public String value;
     }
 
@@ -364,6 +407,20 @@ public class ClassConstantPool {
 
         public int name_index;
         public String name;
+        @Nullable private volatile String desc;
+
+        /**
+         * Gets the descriptor of this class. The descriptor is cached as it is
+         * needed by every instruction referencing the class.
+         */
+        public String getDescriptor() {
+            String d = this.desc;
+            if (d == null) {
+                d = "L" + this.name + ";";
+                this.desc = d;
+            }
+            return d;
+        }
     }
 
     public static class NameAndTypeEntry extends Entry {
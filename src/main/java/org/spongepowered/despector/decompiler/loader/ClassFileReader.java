@@ -0,0 +1,174 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.loader;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.despector.decompiler.error.SourceFormatException;
+
+import java.io.EOFException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A cursor over the data of a class file held in a byte array.
+ *
+ * <p>Values are read directly from the array at the current offset, without
+ * the copying and per-byte virtual calls of a {@link java.io.DataInputStream}.
+ * Skipping data only advances the offset.</p>
+ */
+public class ClassFileReader {
+
+    private final byte[] data;
+    private final int end;
+    private int offset;
+
+    public ClassFileReader(byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    /**
+     * Creates a new reader over the given range of the array.
+     */
+    public ClassFileReader(byte[] data, int offset, int length) {
+        this.data = checkNotNull(data, "data");
+        if (offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IndexOutOfBoundsException("Range " + offset + "+" + length + " outside of array of length " + data.length);
+        }
+        this.offset = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Gets the underlying array of this reader.
+     */
+    public byte[] getData() {
+        return this.data;
+    }
+
+    /**
+     * Gets the offset within the underlying array of the next byte to be read.
+     */
+    public int getOffset() {
+        return this.offset;
+    }
+
+    private int advance(int count) throws EOFException {
+        int current = this.offset;
+        if (count > this.end - current) {
+            throw new EOFException();
+        }
+        this.offset = current + count;
+        return current;
+    }
+
+    public int readUnsignedByte() throws EOFException {
+        return this.data[advance(1)] & 0xFF;
+    }
+
+    public byte readByte() throws EOFException {
+        return this.data[advance(1)];
+    }
+
+    public int readUnsignedShort() throws EOFException {
+        int i = advance(2);
+        return ((this.data[i] & 0xFF) << 8) | (this.data[i + 1] & 0xFF);
+    }
+
+    public short readShort() throws EOFException {
+        return (short) readUnsignedShort();
+    }
+
+    public int readInt() throws EOFException {
+        int i = advance(4);
+        return ((this.data[i] & 0xFF) << 24) | ((this.data[i + 1] & 0xFF) << 16) | ((this.data[i + 2] & 0xFF) << 8) | (this.data[i + 3] & 0xFF);
+    }
+
+    public float readFloat() throws EOFException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    /**
+     * Skips the given number of bytes and returns the offset of the first
+     * skipped byte in the underlying array.
+     */
+    public int skipBytes(int count) throws EOFException {
+        if (count < 0) {
+            throw new EOFException();
+        }
+        return advance(count);
+    }
+
+    /**
+     * Decodes the given range of the array as the modified UTF-8 used by
+     * class files, in which the null character is encoded in two bytes and
+     * supplementary characters are encoded as two separately encoded
+     * surrogates rather than as a single four byte sequence.
+     */
+    public static String decodeModifiedUtf8(byte[] data, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        while (i < end && data[i] >= 0) {
+            i++;
+        }
+        if (i == end) {
+            // plain ascii, which every charset decodes the same
+            return new String(data, offset, length, StandardCharsets.ISO_8859_1);
+        }
+        char[] chars = new char[length];
+        int count = 0;
+        for (int j = offset; j < i; j++) {
+            chars[count++] = (char) data[j];
+        }
+        while (i < end) {
+            int a = data[i++] & 0xFF;
+            if (a < 0x80) {
+                chars[count++] = (char) a;
+            } else if ((a & 0xE0) == 0xC0) {
+                if (i >= end) {
+                    throw new SourceFormatException("Truncated modified utf-8 sequence");
+                }
+                int b = data[i++];
+                if ((b & 0xC0) != 0x80) {
+                    throw new SourceFormatException("Malformed modified utf-8 sequence");
+                }
+                chars[count++] = (char) (((a & 0x1F) << 6) | (b & 0x3F));
+            } else if ((a & 0xF0) == 0xE0) {
+                if (i + 1 >= end) {
+                    throw new SourceFormatException("Truncated modified utf-8 sequence");
+                }
+                int b = data[i++];
+                int c = data[i++];
+                if ((b & 0xC0) != 0x80 || (c & 0xC0) != 0x80) {
+                    throw new SourceFormatException("Malformed modified utf-8 sequence");
+                }
+                chars[count++] = (char) (((a & 0x0F) << 12) | ((b & 0x3F) << 6) | (c & 0x3F));
+            } else {
+                throw new SourceFormatException("Malformed modified utf-8 sequence");
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+}
@@ -0,0 +1,429 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.loader;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.despector.ast.SourceSet;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link SourceSet.Loader} over a classpath of jars and directories.
+ *
+ * <p>The classpath is indexed once when the loader is created, mapping each
+ * class name to the archive and the offset of the entry within it. Lookups
+ * are then a single map access followed by a positional read of the entry,
+ * and may be made concurrently. A class present in several archives is
+ * loaded from the first of them on the classpath.</p>
+ *
+ * <p>If an index directory is given the index of each jar is persisted there,
+ * keyed by the path, modification time and size of the jar, so that
+ * unchanged jars are not scanned again by later loaders. Directories are
+ * always scanned.</p>
+ */
+public class ClasspathLoader implements SourceSet.Loader, Closeable {
+
+    private static final int INDEX_VERSION = 1;
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_HEADER = 0x06054b50;
+    private static final int END_HEADER_SIZE = 22;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private final List<Archive> archives = new ArrayList<>();
+    private final Map<String, Location> index = new HashMap<>();
+    @Nullable private final Path index_dir;
+
+    public ClasspathLoader(List<Path> classpath) throws IOException {
+        this(classpath, null);
+    }
+
+    /**
+     * Creates a new loader over the given classpath, persisting the indices
+     * of its jars in the given directory.
+     */
+    public ClasspathLoader(List<Path> classpath, @Nullable Path index_dir) throws IOException {
+        this.index_dir = index_dir;
+        if (index_dir != null) {
+            Files.createDirectories(index_dir);
+        }
+        for (Path path : classpath) {
+            if (Files.isDirectory(path)) {
+                indexDirectory(path);
+            } else if (Files.isRegularFile(path)) {
+                indexJar(path);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of classes available from this loader.
+     */
+    public int size() {
+        return this.index.size();
+    }
+
+    /**
+     * Gets if the type with the given internal name is on this classpath.
+     */
+    public boolean contains(String name) {
+        return this.index.containsKey(name);
+    }
+
+    @Override
+    public InputStream find(String name) {
+        try {
+            byte[] data = read(name);
+            return data == null ? null : new ByteArrayInputStream(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + name + " from the classpath", e);
+        }
+    }
+
+    /**
+     * Reads the class file of the type with the given internal name, or
+     * returns null if it is not on this classpath.
+     */
+    @Nullable
+    public byte[] read(String name) throws IOException {
+        Location loc = this.index.get(checkNotNull(name, "name"));
+        if (loc == null) {
+            return null;
+        }
+        if (loc.archive.is_directory) {
+            return Files.readAllBytes(loc.archive.path.resolve(name + ".class"));
+        }
+        FileChannel channel = loc.archive.open();
+        ByteBuffer header = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header, loc.offset);
+        if (header.getInt(0) != LOCAL_HEADER) {
+            throw new IOException("Bad local header for " + name + " in " + loc.archive.path);
+        }
+        long data_start = loc.offset + 30 + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+        if (loc.method == STORED) {
+            ByteBuffer data = ByteBuffer.allocate(loc.size);
+            readFully(channel, data, data_start);
+            return data.array();
+        }
+        // the inflater needs an extra dummy byte after the data when reading
+        // raw deflate streams
+        ByteBuffer compressed = ByteBuffer.allocate(loc.compressed_size + 1);
+        compressed.limit(loc.compressed_size);
+        readFully(channel, compressed, data_start);
+        byte[] data = new byte[loc.size];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed.array());
+            int count = 0;
+            while (count < data.length) {
+                int n = inflater.inflate(data, count, data.length - count);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new EOFException("Truncated entry for " + name + " in " + loc.archive.path);
+                }
+                count += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt entry for " + name + " in " + loc.archive.path, e);
+        } finally {
+            inflater.end();
+        }
+        return data;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for (Archive archive : this.archives) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void indexDirectory(Path dir) throws IOException {
+        Archive archive = new Archive(dir, true);
+        this.archives.add(archive);
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.forEach((file) -> {
+                String name = dir.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                if (name.endsWith(".class")) {
+                    this.index.putIfAbsent(name.substring(0, name.length() - 6), new Location(archive, -1, 0, 0, STORED));
+                }
+            });
+        }
+    }
+
+    private void indexJar(Path jar) throws IOException {
+        Archive archive = new Archive(jar, false);
+        this.archives.add(archive);
+        long modified = Files.getLastModifiedTime(jar).toMillis();
+        long length = Files.size(jar);
+        Path index_file = null;
+        if (this.index_dir != null) {
+            String key = jar.toAbsolutePath().normalize().toString();
+            index_file = this.index_dir.resolve(Integer.toHexString(key.hashCode()) + ".idx");
+            if (readIndex(index_file, key, modified, length, archive)) {
+                return;
+            }
+        }
+        List<Entry> entries = scanJar(archive);
+        if (entries == null) {
+            return;
+        }
+        for (Entry entry : entries) {
+            this.index.putIfAbsent(entry.name, entry.loc);
+        }
+        if (index_file != null) {
+            writeIndex(index_file, jar.toAbsolutePath().normalize().toString(), modified, length, entries);
+        }
+    }
+
+    /**
+     * Reads the class entries of the central directory of the given jar, or
+     * returns null if the jar could not be indexed.
+     */
+    @Nullable
+    private static List<Entry> scanJar(Archive archive) throws IOException {
+        FileChannel channel = archive.open();
+        long file_size = channel.size();
+        int tail_size = (int) Math.min(file_size, END_HEADER_SIZE + 0xFFFF);
+        ByteBuffer tail = ByteBuffer.allocate(tail_size).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, tail, file_size - tail_size);
+        int end = -1;
+        for (int i = tail_size - END_HEADER_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_HEADER) {
+                end = i;
+                break;
+            }
+        }
+        if (end == -1) {
+            System.err.println("Warning: Skipping " + archive.path + " which is not a jar");
+            return null;
+        }
+        int entry_count = tail.getShort(end + 10) & 0xFFFF;
+        long dir_size = tail.getInt(end + 12) & 0xFFFFFFFFL;
+        long dir_offset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+        if (entry_count == 0xFFFF || dir_offset == 0xFFFFFFFFL) {
+            System.err.println("Warning: Skipping zip64 archive " + archive.path);
+            return null;
+        }
+        ByteBuffer dir = ByteBuffer.allocate((int) dir_size).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, dir, dir_offset);
+        List<Entry> entries = new ArrayList<>(entry_count);
+        int pos = 0;
+        for (int i = 0; i < entry_count; i++) {
+            if (dir.getInt(pos) != CENTRAL_HEADER) {
+                throw new IOException("Bad central directory in " + archive.path);
+            }
+            int method = dir.getShort(pos + 10) & 0xFFFF;
+            long compressed_size = dir.getInt(pos + 20) & 0xFFFFFFFFL;
+            long size = dir.getInt(pos + 24) & 0xFFFFFFFFL;
+            int name_length = dir.getShort(pos + 28) & 0xFFFF;
+            int extra_length = dir.getShort(pos + 30) & 0xFFFF;
+            int comment_length = dir.getShort(pos + 32) & 0xFFFF;
+            long offset = dir.getInt(pos + 42) & 0xFFFFFFFFL;
+            String name = new String(dir.array(), pos + 46, name_length, StandardCharsets.UTF_8);
+            pos += 46 + name_length + extra_length + comment_length;
+            if (!name.endsWith(".class") || name.startsWith("META-INF/")) {
+                continue;
+            }
+            if (method != STORED && method != DEFLATED) {
+                System.err.println("Warning: Skipping " + name + " in " + archive.path + " with unsupported compression " + method);
+                continue;
+            }
+            if (size > Integer.MAX_VALUE || compressed_size >= Integer.MAX_VALUE) {
+                System.err.println("Warning: Skipping oversized entry " + name + " in " + archive.path);
+                continue;
+            }
+            entries.add(new Entry(name.substring(0, name.length() - 6), new Location(archive, offset, (int) compressed_size, (int) size, method)));
+        }
+        return entries;
+    }
+
+    private boolean readIndex(Path index_file, String key, long modified, long length, Archive archive) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(index_file))) {
+            if (in.readInt() != INDEX_VERSION || !key.equals(in.readUTF()) || in.readLong() != modified || in.readLong() != length) {
+                return false;
+            }
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                long offset = in.readLong();
+                int compressed_size = in.readInt();
+                int size = in.readInt();
+                int method = in.readUnsignedShort();
+                entries.add(new Entry(name, new Location(archive, offset, compressed_size, size, method)));
+            }
+            for (Entry entry : entries) {
+                this.index.putIfAbsent(entry.name, entry.loc);
+            }
+            return true;
+        } catch (IOException e) {
+            // a missing or corrupt index is rebuilt from the jar
+            return false;
+        }
+    }
+
+    private static void writeIndex(Path index_file, String key, long modified, long length, List<Entry> entries) throws IOException {
+        Path temp = Files.createTempFile(index_file.getParent(), index_file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.writeInt(INDEX_VERSION);
+                out.writeUTF(key);
+                out.writeLong(modified);
+                out.writeLong(length);
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    out.writeUTF(entry.name);
+                    out.writeLong(entry.loc.offset);
+                    out.writeInt(entry.loc.compressed_size);
+                    out.writeInt(entry.loc.size);
+                    out.writeShort(entry.loc.method);
+                }
+            }
+            Files.move(temp, index_file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, pos);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            pos += n;
+        }
+    }
+
+    /**
+     * A jar or directory on the classpath.
+     */
+    private static class Archive {
+
+        final Path path;
+        final boolean is_directory;
+        private volatile FileChannel channel;
+
+        Archive(Path path, boolean is_directory) {
+            this.path = path;
+            this.is_directory = is_directory;
+        }
+
+        FileChannel open() throws IOException {
+            FileChannel ch = this.channel;
+            if (ch == null || !ch.isOpen()) {
+                synchronized (this) {
+                    ch = this.channel;
+                    // the channel is closed if a thread reading from it is
+                    // interrupted, in which case it is reopened
+                    if (ch == null || !ch.isOpen()) {
+                        ch = FileChannel.open(this.path, StandardOpenOption.READ);
+                        this.channel = ch;
+                    }
+                }
+            }
+            return ch;
+        }
+
+        synchronized void close() throws IOException {
+            if (this.channel != null) {
+                this.channel.close();
+                this.channel = null;
+            }
+        }
+
+    }
+
+    /**
+     * The location of a class file within an archive.
+     */
+    private static class Location {
+
+        final Archive archive;
+        final long offset;
+        final int compressed_size;
+        final int size;
+        final int method;
+
+        Location(Archive archive, long offset, int compressed_size, int size, int method) {
+            this.archive = archive;
+            this.offset = offset;
+            this.compressed_size = compressed_size;
+            this.size = size;
+            this.method = method;
+        }
+
+    }
+
+    private static class Entry {
+
+        final String name;
+        final Location loc;
+
+        Entry(String name, Location loc) {
+            this.name = name;
+            this.loc = loc;
+        }
+
+    }
+
+}
@@ -66,7 +66,7 @@ public final class ConditionBuilder {
         }
         StatementBuilder.appendBlock(block, dummy, locals, dummy_stack);
 
-        switch (block.getLast().getOpcode()) {
+        switch (block.getLastOpcode()) {
         case Insn.IFEQ: {
             if (dummy_stack.size() != 1) {
                 throw new IllegalStateException();
@@ -100,14 +100,15 @@ public final class ConditionBuilder {
             }
             Instruction b = dummy_stack.pop();
             Instruction a = dummy_stack.pop();
-            return new CompareCondition(a, b, CompareCondition.fromOpcode(block.getLast().getOpcode()));
+            return new CompareCondition(a, b, CompareCondition.fromOpcode(block.getLastOpcode()));
         }
         default:
-            throw new IllegalStateException("Unsupported conditional jump opcode " + block.getLast().getOpcode());
+            throw new IllegalStateException("Unsupported conditional jump opcode " + block.getLastOpcode());
         }
     }
 
     private static void dfs(ConditionGraphNode next, Deque<Condition> stack) {
+        MethodBudget.step();
 
         // performs a depth-first-search to populate each node in the graph's
         // partial conditions
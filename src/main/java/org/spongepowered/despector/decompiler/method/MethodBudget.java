@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.method;
+
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.error.BudgetExceededException;
+
+/**
+ * The time and step budget of the method body currently being decompiled on
+ * this thread.
+ *
+ * <p>Long running stages of the method decompiler call {@link #step()} as they
+ * make progress. Once the budget is used up the next step throws a
+ * {@link BudgetExceededException} which unwinds the decompilation of the
+ * method.</p>
+ */
+public final class MethodBudget {
+
+    private static final ThreadLocal<MethodBudget> current = new ThreadLocal<>();
+
+    /**
+     * Starts a budget on the current thread using the limits from the
+     * {@link LibraryConfiguration}. Returns null if no limits are configured.
+     */
+    public static MethodBudget start() {
+        return start(LibraryConfiguration.method_time_budget, LibraryConfiguration.method_step_budget);
+    }
+
+    /**
+     * Starts a budget on the current thread with the given limits, a limit of
+     * zero is unbounded. Returns null if both limits are unbounded.
+     */
+    public static MethodBudget start(long time_millis, long max_steps) {
+        if (time_millis <= 0 && max_steps <= 0) {
+            return null;
+        }
+        MethodBudget budget = new MethodBudget(time_millis, max_steps, current.get());
+        current.set(budget);
+        return budget;
+    }
+
+    /**
+     * Records a step of progress against the budget of the current thread.
+     */
+    public static void step() {
+        MethodBudget budget = current.get();
+        if (budget != null) {
+            budget.consume();
+        }
+    }
+
+    private final long time_millis;
+    private final long deadline;
+    private final long max_steps;
+    private final MethodBudget previous;
+    private long steps;
+
+    private MethodBudget(long time_millis, long max_steps, MethodBudget previous) {
+        this.time_millis = time_millis;
+        this.deadline = time_millis > 0 ? System.nanoTime() + time_millis * 1000000 : 0;
+        this.max_steps = max_steps;
+        this.previous = previous;
+    }
+
+    /**
+     * Gets the number of steps taken so far.
+     */
+    public long getSteps() {
+        return this.steps;
+    }
+
+    private void consume() {
+        this.steps++;
+        if (this.max_steps > 0 && this.steps > this.max_steps) {
+            throw new BudgetExceededException("Exceeded step budget of " + this.max_steps + " steps");
+        }
+        if (this.deadline != 0 && System.nanoTime() - this.deadline > 0) {
+            throw new BudgetExceededException("Exceeded time budget of " + this.time_millis + "ms");
+        }
+    }
+
+    /**
+     * Ends this budget and restores the budget that was active when it was
+     * started.
+     */
+    public void finish() {
+        if (this.previous == null) {
+            current.remove();
+        } else {
+            current.set(this.previous);
+        }
+    }
+
+}
@@ -31,9 +31,8 @@ import org.spongepowered.despector.ast.insn.var.LocalAccess;
 import org.spongepowered.despector.ast.stmt.StatementBlock;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.error.BudgetExceededException;
 import org.spongepowered.despector.decompiler.ir.InsnBlock;
-import org.spongepowered.despector.decompiler.ir.JumpInsn;
-import org.spongepowered.despector.decompiler.ir.SwitchInsn;
 import org.spongepowered.despector.decompiler.method.graph.GraphOperation;
 import org.spongepowered.despector.decompiler.method.graph.GraphProcessor;
 import org.spongepowered.despector.decompiler.method.graph.GraphProducerStep;
@@ -41,10 +40,12 @@ import org.spongepowered.despector.decompiler.method.graph.RegionProcessor;
 import org.spongepowered.despector.decompiler.method.graph.data.block.BlockSection;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.BodyOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlockList;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.SwitchOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.TryCatchMarkerOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.postprocess.StatementPostProcessor;
 import org.spongepowered.despector.decompiler.method.special.SpecialMethodProcessor;
+import org.spongepowered.despector.util.metrics.Metrics;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -129,11 +130,26 @@ public class MethodDecompiler {
 
     /**
      * Decompiles the given asm method to a statement block.
+     *
+     * <p>If a {@link MethodBudget} is configured and decompiling the method
+     * exceeds it then a {@link BudgetExceededException} is thrown.</p>
      */
     public StatementBlock decompile(MethodEntry entry) {
         if (entry.getIR() == null || entry.getIR().size() == 0) {
             return null;
         }
+        MethodBudget budget = MethodBudget.start();
+        try {
+            return decompileBody(entry);
+        } finally {
+            if (budget != null) {
+                budget.finish();
+            }
+        }
+    }
+
+    private StatementBlock decompileBody(MethodEntry entry) {
+        long phase_start = System.nanoTime();
 
         // Setup the partial method
         PartialMethod partial = new PartialMethod(this, entry);
@@ -164,9 +180,18 @@ public class MethodDecompiler {
 
         // process the graph to perform in-graph operations prior to flattening
         // it to a list of block sections
+        boolean profile = StepProfiler.isEnabled();
         for (GraphOperation op : this.cleanup_operations) {
+            MethodBudget.step();
+            long step_start = profile ? System.nanoTime() : 0;
             op.process(partial);
+            if (profile) {
+                StepProfiler.record(op, step_start, graph.size());
+            }
         }
+        // the cleanup operations edit the graph in place so any dominator
+        // trees they queried no longer describe it
+        partial.invalidateDominators();
 
         if (partial.getEntry().getName().equals(targeted_breakpoint)) {
             for (OpcodeBlock g : graph) {
@@ -175,6 +200,8 @@ public class MethodDecompiler {
             System.out.println();
         }
 
+        phase_start = Metrics.GRAPH.recordSince(phase_start);
+
         // Performs a sequence of transformations to convert the graph into a
         // simple array of partially decompiled block sections.
         List<BlockSection> flat_graph = new ArrayList<>();
@@ -198,9 +225,17 @@ public class MethodDecompiler {
             BlockSection op = flat_graph.get(i);
             op.appendTo(block, entry.getLocals(), stack);
         }
+        phase_start = Metrics.FLATTEN.recordSince(phase_start);
         for (StatementPostProcessor post : this.post_processors) {
+            MethodBudget.step();
+            long step_start = profile ? System.nanoTime() : 0;
             try {
                 post.postprocess(block);
+                if (profile) {
+                    StepProfiler.record(post, step_start, block.getStatementCount());
+                }
+            } catch (BudgetExceededException e) {
+                throw e;
             } catch (Exception e) {
                 if (!LibraryConfiguration.quiet) {
                     System.err.println("Failed to apply post processor: " + post.getClass().getSimpleName());
@@ -208,6 +243,7 @@ public class MethodDecompiler {
                 }
             }
         }
+        Metrics.POST_PROCESS.recordSince(phase_start);
 
         return block;
     }
@@ -217,49 +253,68 @@ public class MethodDecompiler {
 
         Set<Integer> break_points = new HashSet<>();
 
+        // every stack map frame is the start of a basic block, so the
+        // instruction before it is a break point. The producers rely on these
+        // rather than scanning for jump targets when the method has a stack
+        // map, and may still remove them.
+        StackMapTable stack_map = instructions.getStackMap();
+        if (stack_map != null) {
+            for (int i = 0; i < stack_map.getFrameCount(); i++) {
+                int frame = stack_map.getFrameIndex(i);
+                if (frame > 0) {
+                    break_points.add(frame - 1);
+                }
+            }
+        }
+
         // queries all graph producers to determine where the instructions
         // should be broken up to form the graph
+        boolean profile = StepProfiler.isEnabled();
         for (GraphProducerStep step : this.graph_producers) {
+            long step_start = profile ? System.nanoTime() : 0;
             step.collectBreakpoints(partial, break_points);
+            if (profile) {
+                StepProfiler.record(step, step_start, instructions.size());
+            }
         }
 
         // Sort the break points
         List<Integer> sorted_break_points = new ArrayList<>(break_points);
         sorted_break_points.sort(Comparator.naturalOrder());
-        List<OpcodeBlock> block_list = new ArrayList<>();
+        List<OpcodeBlock> block_list = new OpcodeBlockList();
 
         // turn all blocks to the basic body opcode block, the various
         // processors will then replace these with the specialized opcode blocks
         int last_brk = 0;
         for (int brk : sorted_break_points) {
-            // accumulate the opcodes beween the next breakpoint and the last
-            // breakpoint.
+            // the opcodes beween the last breakpoint and the next breakpoint
+            // are read from the instructions until a block modifies them
             OpcodeBlock block = new BodyOpcodeBlock(last_brk, brk);
             block_list.add(block);
-            for (int i = last_brk; i <= brk; i++) {
-                block.getOpcodes().add(instructions.get(i));
-            }
+            block.setOpcodes(instructions.range(last_brk, brk + 1));
             last_brk = brk + 1;
         }
 
         if (last_brk < instructions.size()) {
             OpcodeBlock block = new BodyOpcodeBlock(last_brk, instructions.size() - 1);
             block_list.add(block);
-            for (int i = last_brk; i < instructions.size(); i++) {
-                block.getOpcodes().add(instructions.get(i));
-            }
+            block.setOpcodes(instructions.range(last_brk, instructions.size()));
         }
 
         for (int i = 0; i < block_list.size() - 1; i++) {
             OpcodeBlock next = block_list.get(i);
-            if (!(next.getLast() instanceof JumpInsn) && !(next.getLast() instanceof SwitchInsn)) {
+            if (!instructions.isJump(next.getEnd()) && !instructions.isSwitch(next.getEnd())) {
                 next.setTarget(block_list.get(i + 1));
             }
         }
 
         // form the edges of the graph
         for (GraphProducerStep step : this.graph_producers) {
+            long step_start = profile ? System.nanoTime() : 0;
             step.formEdges(partial, sorted_break_points, block_list);
+            if (profile) {
+                StepProfiler.record(step, step_start, block_list.size());
+            }
         }
 
         return block_list;
@@ -273,10 +328,16 @@ public class MethodDecompiler {
         if (stop_offs < 0) {
             return;
         }
+        boolean profile = StepProfiler.isEnabled();
         outer: for (int i = 0; i < blocks.size() - stop_offs; i++) {
             OpcodeBlock region_start = blocks.get(i);
             for (GraphProcessor processor : this.processors) {
+                MethodBudget.step();
+                long step_start = profile ? System.nanoTime() : 0;
                 int next = processor.process(partial, blocks, region_start, result);
+                if (profile) {
+                    StepProfiler.record(processor, step_start, blocks.size());
+                }
                 if (next != -1) {
                     i = next;
                     continue outer;
@@ -289,8 +350,14 @@ public class MethodDecompiler {
      * Processes the given region with the registered region processors.
      */
     public BlockSection processRegion(PartialMethod partial, List<OpcodeBlock> region, OpcodeBlock ret, int body_start) {
+        boolean profile = StepProfiler.isEnabled();
         for (RegionProcessor proc : this.region_processors) {
+            MethodBudget.step();
+            long step_start = profile ? System.nanoTime() : 0;
             BlockSection block = proc.process(partial, region, ret, body_start);
+            if (profile) {
+                StepProfiler.record(proc, step_start, region.size());
+            }
             if (block != null) {
                 return block;
             }
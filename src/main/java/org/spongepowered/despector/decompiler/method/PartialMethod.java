@@ -28,12 +28,15 @@ import org.spongepowered.despector.ast.Locals;
 import org.spongepowered.despector.ast.stmt.StatementBlock;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.decompiler.ir.InsnBlock;
+import org.spongepowered.despector.decompiler.method.graph.DominatorTree;
 import org.spongepowered.despector.decompiler.method.graph.data.block.BlockSection;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 /**
  * A structure of intermediate data of a method which is in the process of being
  * decompiled.
@@ -45,6 +48,8 @@ public class PartialMethod {
 
     private StatementBlock block;
     private List<OpcodeBlock> graph;
+    @Nullable private DominatorTree dominators;
+    @Nullable private DominatorTree post_dominators;
     private List<BlockSection> final_blocks = new ArrayList<>();
 
     public PartialMethod(MethodDecompiler decompiler, MethodEntry method) {
@@ -80,6 +85,15 @@ public class PartialMethod {
         return this.method.getIR();
     }
 
+    /**
+     * Gets the method's stack map frames, or null if it has none. Every frame
+     * starts a basic block.
+     */
+    @Nullable
+    public StackMapTable getStackMap() {
+        return this.method.getIR().getStackMap();
+    }
+
     /**
      * Gets the {@link StatementBlock} that will be filled with the final
      * statements.
@@ -107,6 +121,38 @@ public class PartialMethod {
      */
     public void setGraph(List<OpcodeBlock> graph) {
         this.graph = graph;
+        invalidateDominators();
+    }
+
+    /**
+     * Gets the dominator tree of the method's graph. The tree is computed on
+     * the first call and reused until the graph is changed.
+     */
+    public DominatorTree getDominators() {
+        if (this.dominators == null) {
+            this.dominators = DominatorTree.dominators(this.graph);
+        }
+        return this.dominators;
+    }
+
+    /**
+     * Gets the post-dominator tree of the method's graph. The tree is computed
+     * on the first call and reused until the graph is changed.
+     */
+    public DominatorTree getPostDominators() {
+        if (this.post_dominators == null) {
+            this.post_dominators = DominatorTree.postDominators(this.graph);
+        }
+        return this.post_dominators;
+    }
+
+    /**
+     * Discards the cached dominator trees, this must be called after any
+     * change to the edges or blocks of the graph.
+     */
+    public void invalidateDominators() {
+        this.dominators = null;
+        this.post_dominators = null;
     }
 
     /**
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.method;
+
+import org.spongepowered.despector.decompiler.error.SourceFormatException;
+import org.spongepowered.despector.decompiler.loader.ClassFileReader;
+import org.spongepowered.despector.util.InsnOffsets;
+
+import java.io.EOFException;
+
+/**
+ * The stack map frames of a method. Every frame applies at the start of a
+ * basic block that is the target of a jump or an exception handler.
+ *
+ * <p>Only the instruction index of each frame is read from the class file,
+ * once the method's IR is created, and these indices seed the basic blocks of
+ * the method's graph. The types held by the frames are skipped.</p>
+ */
+public class StackMapTable {
+
+    private static final int ITEM_OBJECT = 7;
+    private static final int ITEM_UNINITIALIZED = 8;
+
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+
+    private int[] frame_indices = new int[0];
+
+    /**
+     * Creates a new table over the StackMapTable attribute in the given range
+     * of the array.
+     */
+    public StackMapTable(byte[] data, int offset, int length) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Maps the bytecode offsets of the frames to instruction indices using the
+     * given offsets of the method's instructions.
+     */
+    public void bake(InsnOffsets offsets) {
+        ClassFileReader reader = new ClassFileReader(this.data, this.offset, this.length);
+        try {
+            int count = reader.readUnsignedShort();
+            int[] indices = new int[count];
+            int bytecode_offset = -1;
+            for (int i = 0; i < count; i++) {
+                int type = reader.readUnsignedByte();
+                int delta;
+                int types = 0;
+                if (type < 64) {
+                    delta = type;
+                } else if (type < 128) {
+                    delta = type - 64;
+                    types = 1;
+                } else if (type < 247) {
+                    throw new SourceFormatException("Unknown stack map frame type: " + type);
+                } else {
+                    delta = reader.readUnsignedShort();
+                    if (type == 247) {
+                        types = 1;
+                    } else if (type > 251 && type < 255) {
+                        types = type - 251;
+                    } else if (type == 255) {
+                        // a full frame holds a list of locals then a list of
+                        // stack values
+                        types = reader.readUnsignedShort();
+                        skipTypes(reader, types);
+                        types = reader.readUnsignedShort();
+                    }
+                }
+                skipTypes(reader, types);
+                bytecode_offset += delta + 1;
+                indices[i] = offsets.indexOf(bytecode_offset);
+            }
+            this.frame_indices = indices;
+        } catch (EOFException e) {
+            throw new SourceFormatException("Truncated StackMapTable", e);
+        }
+    }
+
+    private static void skipTypes(ClassFileReader reader, int count) throws EOFException {
+        for (int t = 0; t < count; t++) {
+            int tag = reader.readUnsignedByte();
+            if (tag == ITEM_OBJECT || tag == ITEM_UNINITIALIZED) {
+                reader.skipBytes(2);
+            } else if (tag > ITEM_UNINITIALIZED) {
+                throw new SourceFormatException("Unknown verification type: " + tag);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of frames in this table.
+     */
+    public int getFrameCount() {
+        return this.frame_indices.length;
+    }
+
+    /**
+     * Gets the instruction index at which the given frame applies. Every
+     * frame marks the start of a basic block.
+     */
+    public int getFrameIndex(int frame) {
+        return this.frame_indices[frame];
+    }
+
+}
@@ -69,6 +69,7 @@ import org.spongepowered.despector.decompiler.ir.DoubleInsn;
 import org.spongepowered.despector.decompiler.ir.FieldInsn;
 import org.spongepowered.despector.decompiler.ir.FloatInsn;
 import org.spongepowered.despector.decompiler.ir.Insn;
+import org.spongepowered.despector.decompiler.ir.InsnBlock;
 import org.spongepowered.despector.decompiler.ir.IntInsn;
 import org.spongepowered.despector.decompiler.ir.InvokeDynamicInsn;
 import org.spongepowered.despector.decompiler.ir.InvokeInsn;
@@ -81,6 +82,9 @@ import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlo
 import org.spongepowered.despector.util.TypeHelper;
 
 import java.util.Deque;
+import java.util.List;
+
+import javax.annotation.Nullable;
 
 /**
  * A utility for forming non-control flow opcodes into statements.
@@ -94,47 +98,55 @@ public final class StatementBuilder {
 
         // Decompiles a set of opcodes into statements.
 
-        for (int index = 0; index < op.getOpcodes().size(); index++) {
+        // while the opcodes are an unmodified range of the method's
+        // instructions the operands of the common instructions are read from
+        // the instruction block rather than from a view of each instruction
+        List<Insn> opcodes = op.getOpcodes();
+        InsnBlock.Range range = InsnBlock.Range.unmodified(opcodes);
+        InsnBlock ir = range == null ? null : range.getBlock();
+        int offset = range == null ? 0 : range.getStart();
+
+        for (int index = 0; index < opcodes.size(); index++) {
             int label_index = op.getStart() + index;
-            Insn next = op.getOpcodes().get(index);
-            switch (next.getOpcode()) {
+            int at = offset + index;
+            Insn next = ir == null ? opcodes.get(index) : null;
+            int opcode = ir == null ? next.getOpcode() : ir.getOpcode(at);
+            switch (opcode) {
             case Insn.NOOP:
                 break;
             case Insn.ICONST:
-                stack.push(new IntConstant(((IntInsn) next).getValue()));
+                stack.push(new IntConstant(operand(next, ir, at)));
                 break;
             case Insn.LCONST:
-                stack.push(new LongConstant(((LongInsn) next).getValue()));
+                stack.push(new LongConstant(((LongInsn) insn(next, ir, at)).getValue()));
                 break;
             case Insn.FCONST:
-                stack.push(new FloatConstant(((FloatInsn) next).getValue()));
+                stack.push(new FloatConstant(((FloatInsn) insn(next, ir, at)).getValue()));
                 break;
             case Insn.DCONST:
-                stack.push(new DoubleConstant(((DoubleInsn) next).getValue()));
+                stack.push(new DoubleConstant(((DoubleInsn) insn(next, ir, at)).getValue()));
                 break;
             case Insn.PUSH: {
-                LdcInsn ldc = (LdcInsn) next;
-                if (ldc.getConstant() == null) {
+                Object cst = reference(next, ir, at, 0);
+                if (cst == null) {
                     stack.push(NullConstant.NULL);
-                } else if (ldc.getConstant() instanceof String) {
-                    stack.push(new StringConstant((String) ldc.getConstant()));
-                } else if (ldc.getConstant() instanceof ClassTypeSignature) {
-                    stack.push(new TypeConstant((ClassTypeSignature) ldc.getConstant()));
+                } else if (cst instanceof String) {
+                    stack.push(new StringConstant((String) cst));
+                } else if (cst instanceof ClassTypeSignature) {
+                    stack.push(new TypeConstant((ClassTypeSignature) cst));
                 } else {
-                    throw new IllegalStateException("Unsupported ldc constant: " + ldc.getConstant().getClass().getName());
+                    throw new IllegalStateException("Unsupported ldc constant: " + cst.getClass().getName());
                 }
                 break;
             }
             case Insn.LOCAL_LOAD: {
-                IntInsn var = (IntInsn) next;
-                Local local = locals.getLocal(var.getValue());
+                Local local = locals.getLocal(operand(next, ir, at));
                 stack.push(new LocalAccess(local.getInstance(label_index)));
                 break;
             }
             case Insn.LOCAL_STORE: {
-                IntInsn var = (IntInsn) next;
                 Instruction val = stack.pop();
-                Local local = locals.getLocal(var.getValue());
+                Local local = locals.getLocal(operand(next, ir, at));
                 LocalInstance instance = local.getInstance(label_index);
                 if (!local.isParameter() && local.getParameterInstance() != null) {
                     instance.setType(val.inferType());
@@ -309,7 +321,7 @@ public final class StatementBuilder {
                 break;
             }
             case Insn.IINC: {
-                VarIntInsn inc = (VarIntInsn) next;
+                VarIntInsn inc = (VarIntInsn) insn(next, ir, at);
                 Local local = locals.getLocal(inc.getLocal());
                 Increment insn = new Increment(local.getInstance(label_index), inc.getValue());
                 block.append(insn);
@@ -328,53 +340,57 @@ public final class StatementBuilder {
                 block.append(new Return());
                 break;
             case Insn.GETSTATIC: {
-                FieldInsn field = (FieldInsn) next;
-                String owner = field.getOwner();
+                String owner = (String) reference(next, ir, at, 0);
                 if (!owner.startsWith("[")) {
                     owner = "L" + owner + ";";
                 }
-                FieldAccess arg = new StaticFieldAccess(field.getName(), ClassTypeSignature.of(field.getDescription()), owner);
+                String name = (String) reference(next, ir, at, 1);
+                String desc = (String) reference(next, ir, at, 2);
+                FieldAccess arg = new StaticFieldAccess(name, ClassTypeSignature.of(desc), owner);
                 stack.push(arg);
                 break;
             }
             case Insn.PUTSTATIC: {
-                FieldInsn field = (FieldInsn) next;
                 Instruction val = stack.pop();
-                String owner = field.getOwner();
+                String owner = (String) reference(next, ir, at, 0);
                 if (!owner.startsWith("[")) {
                     owner = "L" + owner + ";";
                 }
-                FieldAssignment assign = new StaticFieldAssignment(field.getName(), ClassTypeSignature.of(field.getDescription()), owner, val);
+                String name = (String) reference(next, ir, at, 1);
+                String desc = (String) reference(next, ir, at, 2);
+                FieldAssignment assign = new StaticFieldAssignment(name, ClassTypeSignature.of(desc), owner, val);
                 block.append(assign);
                 break;
             }
             case Insn.GETFIELD: {
-                FieldInsn field = (FieldInsn) next;
-                String owner = field.getOwner();
+                String owner = (String) reference(next, ir, at, 0);
                 if (!owner.startsWith("[")) {
                     owner = "L" + owner + ";";
                 }
-                FieldAccess arg = new InstanceFieldAccess(field.getName(), ClassTypeSignature.of(field.getDescription()), owner, stack.pop());
+                String name = (String) reference(next, ir, at, 1);
+                String desc = (String) reference(next, ir, at, 2);
+                FieldAccess arg = new InstanceFieldAccess(name, ClassTypeSignature.of(desc), owner, stack.pop());
                 stack.push(arg);
                 break;
             }
             case Insn.PUTFIELD: {
-                FieldInsn field = (FieldInsn) next;
                 Instruction val = stack.pop();
                 Instruction owner = stack.pop();
-                String owner_t = field.getOwner();
+                String owner_t = (String) reference(next, ir, at, 0);
                 if (!owner_t.startsWith("[")) {
                     owner_t = "L" + owner_t + ";";
                 }
-                FieldAssignment assign =
-                        new InstanceFieldAssignment(field.getName(), ClassTypeSignature.of(field.getDescription()), owner_t, owner, val);
+                String name = (String) reference(next, ir, at, 1);
+                String desc = (String) reference(next, ir, at, 2);
+                FieldAssignment assign = new InstanceFieldAssignment(name, ClassTypeSignature.of(desc), owner_t, owner, val);
                 block.append(assign);
                 break;
             }
             case Insn.INVOKE: {
-                InvokeInsn method = (InvokeInsn) next;
-                if (method.getName().equals("<init>")) {
-                    Instruction[] args = new Instruction[TypeHelper.paramCount(method.getDescription())];
+                String name = (String) reference(next, ir, at, 2);
+                String desc = (String) reference(next, ir, at, 3);
+                if (name.equals("<init>")) {
+                    Instruction[] args = new Instruction[TypeHelper.paramCount(desc)];
                     for (int i = args.length - 1; i >= 0; i--) {
                         args[i] = stack.pop();
                     }
@@ -383,40 +399,41 @@ public final class StatementBuilder {
                         if (stack.peek() instanceof New) {
                             New new_arg2 = (New) stack.pop();
                             if (new_arg2 == new_arg) {
-                                new_arg.setCtorDescription(method.getDescription());
+                                new_arg.setCtorDescription(desc);
                                 new_arg.setParameters(args);
                                 stack.push(new_arg);
                                 break;
                             }
                             stack.push(new_arg2);
                         }
-                        New insn = new New(new_arg.getType(), method.getDescription(), args);
+                        New insn = new New(new_arg.getType(), desc, args);
                         block.append(new InvokeStatement(insn));
                         break;
                     } else if (stack.peek() instanceof LocalAccess) {
                         LocalAccess callee = (LocalAccess) stack.pop();
-                        String owner = method.getOwner();
+                        String owner = (String) reference(next, ir, at, 1);
                         if (!owner.startsWith("[")) {
                             owner = "L" + owner + ";";
                         }
-                        InstanceMethodInvoke arg =
-                                new InstanceMethodInvoke(method.getType(), method.getName(), method.getDescription(), owner, args, callee);
+                        InstanceMethodInvoke.Type type = (InstanceMethodInvoke.Type) reference(next, ir, at, 0);
+                        InstanceMethodInvoke arg = new InstanceMethodInvoke(type, name, desc, owner, args, callee);
                         block.append(new InvokeStatement(arg));
                         break;
                     }
                     throw new IllegalStateException("Callee of call to <init> was " + stack.pop());
                 }
-                String ret = TypeHelper.getRet(method.getDescription());
-                Instruction[] args = new Instruction[TypeHelper.paramCount(method.getDescription())];
+                String ret = TypeHelper.getRet(desc);
+                Instruction[] args = new Instruction[TypeHelper.paramCount(desc)];
                 for (int i = args.length - 1; i >= 0; i--) {
                     args[i] = stack.pop();
                 }
                 Instruction callee = stack.pop();
-                String owner = method.getOwner();
+                String owner = (String) reference(next, ir, at, 1);
                 if (!owner.startsWith("[")) {
                     owner = "L" + owner + ";";
                 }
-                InstanceMethodInvoke arg = new InstanceMethodInvoke(method.getType(), method.getName(), method.getDescription(), owner, args, callee);
+                InstanceMethodInvoke.Type type = (InstanceMethodInvoke.Type) reference(next, ir, at, 0);
+                InstanceMethodInvoke arg = new InstanceMethodInvoke(type, name, desc, owner, args, callee);
                 if (ret.equals("V")) {
                     block.append(new InvokeStatement(arg));
                 } else {
@@ -425,17 +442,18 @@ public final class StatementBuilder {
                 break;
             }
             case Insn.INVOKESTATIC: {
-                InvokeInsn method = (InvokeInsn) next;
-                String ret = TypeHelper.getRet(method.getDescription());
-                Instruction[] args = new Instruction[TypeHelper.paramCount(method.getDescription())];
+                String name = (String) reference(next, ir, at, 2);
+                String desc = (String) reference(next, ir, at, 3);
+                String ret = TypeHelper.getRet(desc);
+                Instruction[] args = new Instruction[TypeHelper.paramCount(desc)];
                 for (int i = args.length - 1; i >= 0; i--) {
                     args[i] = stack.pop();
                 }
-                String owner = method.getOwner();
+                String owner = (String) reference(next, ir, at, 1);
                 if (!owner.startsWith("[")) {
                     owner = "L" + owner + ";";
                 }
-                StaticMethodInvoke arg = new StaticMethodInvoke(method.getName(), method.getDescription(), owner, args);
+                StaticMethodInvoke arg = new StaticMethodInvoke(name, desc, owner, args);
                 if (ret.equals("V")) {
                     block.append(new InvokeStatement(arg));
                 } else {
@@ -444,7 +462,7 @@ public final class StatementBuilder {
                 break;
             }
             case Insn.INVOKEDYNAMIC: {
-                InvokeDynamicInsn invoke = (InvokeDynamicInsn) next;
+                InvokeDynamicInsn invoke = (InvokeDynamicInsn) insn(next, ir, at);
                 TypeSignature type = ClassTypeSignature.of(TypeHelper.getRet(invoke.getType()));
                 if (invoke.isInterface()) {
                     MethodReference handle = new MethodReference(stack.pop(), invoke.getLambdaOwner(), invoke.getLambdaName(),
@@ -458,18 +476,18 @@ public final class StatementBuilder {
                 break;
             }
             case Insn.NEW: {
-                TypeSignature type = ClassTypeSignature.of(((TypeInsn) next).getType());
+                TypeSignature type = ClassTypeSignature.of((String) reference(next, ir, at, 0));
                 stack.push(new New(type, null, null));
                 break;
             }
             case Insn.NEWARRAY: {
                 Instruction size = stack.pop();
-                TypeInsn array = (TypeInsn) next;
-                stack.push(new NewArray(ClassTypeSignature.of(array.getType()), size, null));
+                String type = (String) reference(next, ir, at, 0);
+                stack.push(new NewArray(ClassTypeSignature.of(type), size, null));
                 break;
             }
             case Insn.MULTINEWARRAY: {
-                TypeIntInsn array = (TypeIntInsn) next;
+                TypeIntInsn array = (TypeIntInsn) insn(next, ir, at);
                 Instruction[] size = new Instruction[array.getValue()];
                 for (int i = array.getValue() - 1; i >= 0; i--) {
                     size[i] = stack.pop();
@@ -481,15 +499,13 @@ public final class StatementBuilder {
                 block.append(new Throw(stack.pop()));
                 break;
             case Insn.CAST: {
-                TypeInsn cast = (TypeInsn) next;
-                String desc = cast.getType();
+                String desc = (String) reference(next, ir, at, 0);
                 stack.push(new Cast(ClassTypeSignature.of(desc), stack.pop()));
                 break;
             }
             case Insn.INSTANCEOF: {
-                TypeInsn insn = (TypeInsn) next;
                 Instruction val = stack.pop();
-                String type = insn.getType();
+                String type = (String) reference(next, ir, at, 0);
                 stack.push(new InstanceOf(val, ClassTypeSignature.of(type)));
                 break;
             }
@@ -506,12 +522,41 @@ public final class StatementBuilder {
                 // graph
                 break;
             default:
-                System.err.println("Unsupported opcode: " + next.getOpcode());
+                System.err.println("Unsupported opcode: " + opcode);
                 throw new IllegalStateException();
             }
         }
     }
 
+    private static Insn insn(@Nullable Insn next, InsnBlock ir, int at) {
+        return next != null ? next : ir.get(at);
+    }
+
+    private static int operand(@Nullable Insn next, InsnBlock ir, int at) {
+        return next != null ? ((IntInsn) next).getValue() : ir.getOperand(at);
+    }
+
+    /**
+     * Gets the reference operand with the given position, in the order used
+     * by {@link InsnBlock#getReference(int, int)}.
+     */
+    @Nullable
+    private static Object reference(@Nullable Insn next, InsnBlock ir, int at, int n) {
+        if (next == null) {
+            return ir.getReference(at, n);
+        }
+        if (next instanceof FieldInsn) {
+            FieldInsn field = (FieldInsn) next;
+            return n == 0 ? field.getOwner() : n == 1 ? field.getName() : field.getDescription();
+        } else if (next instanceof InvokeInsn) {
+            InvokeInsn method = (InvokeInsn) next;
+            return n == 0 ? method.getType() : n == 1 ? method.getOwner() : n == 2 ? method.getName() : method.getDescription();
+        } else if (next instanceof LdcInsn) {
+            return ((LdcInsn) next).getConstant();
+        }
+        return ((TypeInsn) next).getType();
+    }
+
     private StatementBuilder() {
     }
 
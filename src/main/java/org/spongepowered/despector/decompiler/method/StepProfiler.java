@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.method;
+
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.util.metrics.Histogram;
+import org.spongepowered.despector.util.metrics.Metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the time taken by each registered step of the method decompiler
+ * when {@link LibraryConfiguration#profile_steps} is enabled.
+ *
+ * <p>Each step is recorded in the {@link Metrics} registry as a histogram
+ * named {@code step.<class name>} of its invocation times and a histogram
+ * named {@code step.<class name>.size} of the size of the graph, region or
+ * statement block it was invoked on. Graph processors may recurse into other
+ * processors so their times are inclusive.</p>
+ */
+public final class StepProfiler {
+
+    private static final String PREFIX = "step.";
+    private static final String SIZE_SUFFIX = ".size";
+
+    /**
+     * Gets if step profiling is enabled.
+     */
+    public static boolean isEnabled() {
+        return LibraryConfiguration.profile_steps;
+    }
+
+    /**
+     * Records an invocation of the given step which started at the given
+     * {@link System#nanoTime()} and was invoked on a graph, region or block of
+     * the given size.
+     */
+    public static void record(Object step, long start, int size) {
+        String name = PREFIX + step.getClass().getSimpleName();
+        Metrics.histogram(name).recordSince(start);
+        Metrics.histogram(name + SIZE_SUFFIX).record(size);
+    }
+
+    /**
+     * Writes a report of all profiled steps ranked by their total time.
+     */
+    public static void writeReport(Appendable out) throws IOException {
+        List<Map.Entry<String, Histogram>> steps = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<String, Histogram> e : Metrics.getHistograms().entrySet()) {
+            if (e.getKey().startsWith(PREFIX) && !e.getKey().endsWith(SIZE_SUFFIX)) {
+                steps.add(e);
+                total += e.getValue().getSum();
+            }
+        }
+        steps.sort((a, b) -> Long.compare(b.getValue().getSum(), a.getValue().getSum()));
+        out.append(String.format("%-40s %10s %12s %10s %7s %10s%n", "step", "calls", "total ms", "mean us", "share", "mean size"));
+        for (Map.Entry<String, Histogram> e : steps) {
+            String name = e.getKey().substring(PREFIX.length());
+            Histogram time = e.getValue();
+            Histogram size = Metrics.histogram(e.getKey() + SIZE_SUFFIX);
+            long calls = time.getCount();
+            out.append(String.format("%-40s %10d %12.1f %10.1f %6.1f%% %10.1f%n", name, calls, time.getSum() / 1e6,
+                    calls == 0 ? 0 : time.getSum() / 1e3 / calls, total == 0 ? 0 : time.getSum() * 100.0 / total,
+                    size.getCount() == 0 ? 0 : (double) size.getSum() / size.getCount()));
+        }
+    }
+
+    private StepProfiler() {
+    }
+
+}
@@ -0,0 +1,382 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.method.graph;
+
+import org.spongepowered.despector.decompiler.ir.Insn;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.ConditionalOpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.SwitchOpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.TryCatchMarkerOpcodeBlock;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * The dominator or post-dominator tree of an opcode graph, computed with the
+ * iterative algorithm of Cooper, Harvey and Kennedy.
+ *
+ * <p>The tree is a snapshot of the graph at the time it was built. Blocks which
+ * cannot be reached from the entry (or cannot reach an exit for a
+ * post-dominator tree) such as exception handlers are treated as additional
+ * roots so that every block of the graph is in the tree. Blocks ending in a
+ * return or throw are exits, even though the graph gives them the following
+ * block as a target.</p>
+ */
+public class DominatorTree {
+
+    /**
+     * Computes the dominator tree of the given graph, the first block of which
+     * is the entry.
+     */
+    public static DominatorTree dominators(List<OpcodeBlock> blocks) {
+        return new DominatorTree(blocks, false);
+    }
+
+    /**
+     * Computes the post-dominator tree of the given graph, blocks without
+     * successors are the exits.
+     */
+    public static DominatorTree postDominators(List<OpcodeBlock> blocks) {
+        return new DominatorTree(blocks, true);
+    }
+
+    private final OpcodeBlock[] blocks;
+    private final Map<OpcodeBlock, Integer> index;
+    private final boolean post;
+
+    // the edges of the graph in the direction of this tree, stored as offsets
+    // into a shared array of targets
+    private final int[] pred_start;
+    private final int[] preds;
+
+    private final int[] idom;
+    private final int[] tree_in;
+    private final int[] tree_out;
+
+    private DominatorTree(List<OpcodeBlock> graph, boolean post) {
+        int count = graph.size();
+        this.blocks = graph.toArray(new OpcodeBlock[count]);
+        this.post = post;
+        this.index = new IdentityHashMap<>(count * 2);
+        for (int i = count - 1; i >= 0; i--) {
+            this.index.put(this.blocks[i], i);
+        }
+
+        int[][] forward = new int[count][];
+        for (int i = 0; i < count; i++) {
+            forward[i] = successors(i);
+        }
+        int[][] succs;
+        int[][] preds;
+        if (post) {
+            succs = invert(forward);
+            preds = forward;
+        } else {
+            succs = forward;
+            preds = invert(forward);
+        }
+        this.pred_start = new int[count + 1];
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            this.pred_start[i] = total;
+            total += preds[i].length;
+        }
+        this.pred_start[count] = total;
+        this.preds = new int[total];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(preds[i], 0, this.preds, this.pred_start[i], preds[i].length);
+        }
+
+        // A virtual root at index count has an edge to the entry (or to every
+        // exit) and to the first block of any part of the graph left
+        // unreached.
+        int root = count;
+        boolean[] root_edge = new boolean[count];
+        int[] postorder = new int[count + 1];
+        Arrays.fill(postorder, -1);
+        int[] rpo = new int[count + 1];
+        int visited = 0;
+        int[][] scratch = new int[2][count];
+        if (post) {
+            for (int i = count - 1; i >= 0; i--) {
+                if (forward[i].length == 0) {
+                    root_edge[i] = true;
+                    visited = visit(i, succs, postorder, rpo, visited, scratch);
+                }
+            }
+            for (int i = count - 1; i >= 0; i--) {
+                if (postorder[i] == -1) {
+                    root_edge[i] = true;
+                    visited = visit(i, succs, postorder, rpo, visited, scratch);
+                }
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                if (postorder[i] == -1) {
+                    root_edge[i] = true;
+                    visited = visit(i, succs, postorder, rpo, visited, scratch);
+                }
+            }
+        }
+        postorder[root] = visited;
+        rpo[visited] = root;
+
+        int[] idom = new int[count + 1];
+        Arrays.fill(idom, -1);
+        idom[root] = root;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            // rpo holds the blocks in postorder, walk it backwards
+            for (int r = visited - 1; r >= 0; r--) {
+                int node = rpo[r];
+                int new_idom = root_edge[node] ? root : -1;
+                for (int p = this.pred_start[node]; p < this.pred_start[node + 1]; p++) {
+                    int pred = this.preds[p];
+                    if (idom[pred] == -1) {
+                        continue;
+                    }
+                    new_idom = new_idom == -1 ? pred : intersect(pred, new_idom, idom, postorder);
+                }
+                if (idom[node] != new_idom) {
+                    idom[node] = new_idom;
+                    changed = true;
+                }
+            }
+        }
+        this.idom = idom;
+
+        // number the tree in depth first order so that dominance queries are
+        // constant time
+        int[] child_start = new int[count + 2];
+        for (int i = 0; i < count; i++) {
+            child_start[idom[i] + 1]++;
+        }
+        for (int i = 1; i < child_start.length; i++) {
+            child_start[i] += child_start[i - 1];
+        }
+        int[] children = new int[count];
+        int[] fill = Arrays.copyOf(child_start, count + 1);
+        for (int i = 0; i < count; i++) {
+            children[fill[idom[i]]++] = i;
+        }
+        this.tree_in = new int[count + 1];
+        this.tree_out = new int[count + 1];
+        int[] stack = new int[count + 1];
+        int[] next_child = new int[count + 1];
+        int depth = 0;
+        int time = 0;
+        stack[0] = root;
+        next_child[root] = child_start[root];
+        this.tree_in[root] = time++;
+        while (depth >= 0) {
+            int node = stack[depth];
+            if (next_child[node] < child_start[node + 1]) {
+                int child = children[next_child[node]++];
+                this.tree_in[child] = time++;
+                next_child[child] = child_start[child];
+                stack[++depth] = child;
+            } else {
+                this.tree_out[node] = time++;
+                depth--;
+            }
+        }
+    }
+
+    private int[] successors(int i) {
+        OpcodeBlock block = this.blocks[i];
+        if (isExit(block)) {
+            return new int[0];
+        }
+        int[] result = new int[4];
+        int count = 0;
+        if (block.getTarget() != null) {
+            result[count++] = indexOf(block.getTarget());
+        } else if (block instanceof TryCatchMarkerOpcodeBlock && i < this.blocks.length - 1) {
+            result[count++] = i + 1;
+        }
+        if (block instanceof ConditionalOpcodeBlock && ((ConditionalOpcodeBlock) block).hasElseTarget()) {
+            result[count++] = indexOf(((ConditionalOpcodeBlock) block).getElseTarget());
+        }
+        if (block instanceof SwitchOpcodeBlock) {
+            for (OpcodeBlock target : ((SwitchOpcodeBlock) block).getAdditionalTargets().values()) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = indexOf(target);
+            }
+        }
+        // edges to blocks which are no longer part of the graph are dropped
+        int kept = 0;
+        for (int j = 0; j < count; j++) {
+            if (result[j] != -1) {
+                result[kept++] = result[j];
+            }
+        }
+        return Arrays.copyOf(result, kept);
+    }
+
+    private static boolean isExit(OpcodeBlock block) {
+        if (block.getOpcodes().isEmpty()) {
+            return false;
+        }
+        int op = block.getLastOpcode();
+        return op == Insn.THROW || op == Insn.RETURN || op == Insn.ARETURN;
+    }
+
+    private static int[][] invert(int[][] edges) {
+        int[] counts = new int[edges.length];
+        for (int[] targets : edges) {
+            for (int t : targets) {
+                counts[t]++;
+            }
+        }
+        int[][] inverted = new int[edges.length][];
+        for (int i = 0; i < edges.length; i++) {
+            inverted[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < edges.length; i++) {
+            for (int t : edges[i]) {
+                inverted[t][counts[t]++] = i;
+            }
+        }
+        return inverted;
+    }
+
+    /**
+     * Visits all unvisited nodes reachable from the given start, assigning
+     * them postorder numbers starting from the given number. Returns the next
+     * unused number.
+     */
+    private static int visit(int start, int[][] succs, int[] postorder, int[] order, int next, int[][] scratch) {
+        if (postorder[start] != -1) {
+            return next;
+        }
+        int[] stack = scratch[0];
+        int[] edge = scratch[1];
+        // mark as on the stack until the node is numbered
+        postorder[start] = -2;
+        stack[0] = start;
+        edge[0] = 0;
+        int depth = 0;
+        while (depth >= 0) {
+            int node = stack[depth];
+            if (edge[depth] < succs[node].length) {
+                int succ = succs[node][edge[depth]++];
+                if (postorder[succ] == -1) {
+                    postorder[succ] = -2;
+                    stack[++depth] = succ;
+                    edge[depth] = 0;
+                }
+            } else {
+                postorder[node] = next;
+                order[next++] = node;
+                depth--;
+            }
+        }
+        return next;
+    }
+
+    private static int intersect(int a, int b, int[] idom, int[] postorder) {
+        while (a != b) {
+            while (postorder[a] < postorder[b]) {
+                a = idom[a];
+            }
+            while (postorder[b] < postorder[a]) {
+                b = idom[b];
+            }
+        }
+        return a;
+    }
+
+    private int indexOf(OpcodeBlock block) {
+        Integer i = this.index.get(block);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Gets if this is a post-dominator tree.
+     */
+    public boolean isPostDominatorTree() {
+        return this.post;
+    }
+
+    /**
+     * Gets if the given block was part of the graph this tree was built from.
+     */
+    public boolean contains(OpcodeBlock block) {
+        return this.index.containsKey(block);
+    }
+
+    /**
+     * Gets the immediate dominator (or post-dominator) of the given block, or
+     * null if the block is a root of the tree or is not in the tree.
+     */
+    @Nullable
+    public OpcodeBlock getImmediateDominator(OpcodeBlock block) {
+        int i = indexOf(block);
+        if (i == -1 || this.idom[i] == this.blocks.length) {
+            return null;
+        }
+        return this.blocks[this.idom[i]];
+    }
+
+    /**
+     * Gets if the first block dominates (or post-dominates) the second. Every
+     * block dominates itself.
+     */
+    public boolean dominates(OpcodeBlock a, OpcodeBlock b) {
+        int ai = indexOf(a);
+        int bi = indexOf(b);
+        if (ai == -1 || bi == -1) {
+            return false;
+        }
+        return this.tree_in[ai] <= this.tree_in[bi] && this.tree_out[bi] <= this.tree_out[ai];
+    }
+
+    /**
+     * Gets if the given block is the target of an edge from a block it
+     * dominates. In a dominator tree this is a loop header.
+     */
+    public boolean isLoopHeader(OpcodeBlock block) {
+        int i = indexOf(block);
+        if (i == -1) {
+            return false;
+        }
+        for (int p = this.pred_start[i]; p < this.pred_start[i + 1]; p++) {
+            int pred = this.preds[p];
+            if (this.tree_in[i] <= this.tree_in[pred] && this.tree_out[pred] <= this.tree_out[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -30,8 +30,8 @@ import org.spongepowered.despector.decompiler.method.graph.data.opcode.BreakMark
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.ConditionalOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.GotoOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlockList;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -48,11 +48,8 @@ public interface RegionProcessor {
      * Gets the end of the region starting at the start index, or -1 if it does
      * not form a sub region.
      */
-    static int getRegionEnd(List<OpcodeBlock> blk, OpcodeBlock ret, int start) {
-        List<OpcodeBlock> blocks = new ArrayList<>(blk);
-        if (ret != null) {
-            blocks.add(ret);
-        }
+    static int getRegionEnd(PartialMethod partial, List<OpcodeBlock> blk, OpcodeBlock ret, int start) {
+        List<OpcodeBlock> blocks = OpcodeBlockList.withTail(blk, ret);
         OpcodeBlock region_start = blocks.get(start);
         // if the target is behind the start then we break as this is likely the
         // condition of a do-while
@@ -110,6 +107,13 @@ public interface RegionProcessor {
         } else {
             end = blocks.indexOf(region_start.getTarget());
         }
+        // the region cannot end before the point where its branches merge, so
+        // the search starts from there rather than growing the region up to it
+        // one target at a time
+        OpcodeBlock merge = partial.getPostDominators().getImmediateDominator(region_start);
+        if (merge != null && merge != ret) {
+            end = Math.max(end, blocks.indexOf(merge));
+        }
         boolean is_goto = region_start instanceof GotoOpcodeBlock;
         return getRegionEnd(blocks, start, end, is_goto, ret);
     }
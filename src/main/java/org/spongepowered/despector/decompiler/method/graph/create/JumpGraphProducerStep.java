@@ -46,19 +46,20 @@ public class JumpGraphProducerStep implements GraphProducerStep {
     @Override
     public void collectBreakpoints(PartialMethod partial, Set<Integer> break_points) {
         InsnBlock instructions = partial.getOpcodes();
+        // the frames of a stack map already break before every jump target
+        boolean scan_targets = instructions.getStackMap() == null;
 
         for (int i = 0; i < instructions.size(); i++) {
-            Insn next = instructions.get(i);
-            if (next instanceof JumpInsn) {
-                if(next.getOpcode() == Insn.GOTO && i > 0) {
+            if (instructions.isJump(i)) {
+                if(instructions.getOpcode(i) == Insn.GOTO && i > 0) {
                     break_points.add(i - 1);
                 }
                 break_points.add(i);
                 // also break before labels targetted by jump opcodes to have a
                 // break between the body of an if block and the statements
                 // after it
-                int target = ((JumpInsn) next).getTarget() - 1;
-                if (target >= 0) {
+                int target = instructions.getOperand(i) - 1;
+                if (scan_targets && target >= 0) {
                     break_points.add(target);
                 }
                 continue;
@@ -72,19 +73,20 @@ public class JumpGraphProducerStep implements GraphProducerStep {
             // Now we go through and form an edge from any block and the block
             // it flows (or jumps) into next.
             OpcodeBlock block = block_list.get(i);
-            if (block.getLast() instanceof JumpInsn) {
-                int label = ((JumpInsn) block.getLast()).getTarget();
-                if (block.getLast().getOpcode() == Insn.GOTO) {
+            Insn last = block.getLast();
+            if (last instanceof JumpInsn) {
+                int label = ((JumpInsn) last).getTarget();
+                if (last.getOpcode() == Insn.GOTO) {
                     GotoOpcodeBlock replacement = new GotoOpcodeBlock(block.getStart(), block.getEnd());
                     block_list.set(i, replacement);
-                    replacement.getOpcodes().addAll(block.getOpcodes());
+                    replacement.setOpcodes(block.getOpcodes());
                     replacement.setTarget(GraphProducerStep.find(block_list, label));
                     GraphOperation.remap(block_list, block, replacement);
                 } else {
                     ConditionalOpcodeBlock replacement = new ConditionalOpcodeBlock(block.getStart(), block.getEnd());
                     OpcodeBlock next = block_list.get(block_list.indexOf(block) + 1);
                     block_list.set(i, replacement);
-                    replacement.getOpcodes().addAll(block.getOpcodes());
+                    replacement.setOpcodes(block.getOpcodes());
                     replacement.setTarget(GraphProducerStep.find(block_list, label));
                     replacement.setElseTarget(next);
                     GraphOperation.remap(block_list, block, replacement);
@@ -45,16 +45,18 @@ public class SwitchGraphProducerStep implements GraphProducerStep {
     @Override
     public void collectBreakpoints(PartialMethod partial, Set<Integer> break_points) {
         InsnBlock instructions = partial.getOpcodes();
+        // the frames of a stack map already break before every case
+        boolean scan_targets = instructions.getStackMap() == null;
 
         for (int i = 0; i < instructions.size(); i++) {
-            Insn next = instructions.get(i);
-            if (next instanceof SwitchInsn) {
+            if (instructions.isSwitch(i)) {
                 break_points.add(i);
-                SwitchInsn ts = (SwitchInsn) next;
-                for (int l : ts.getTargets().values()) {
-                    break_points.add(l - 1);
+                if (scan_targets) {
+                    for (int l : instructions.getSwitchTargets(i).values()) {
+                        break_points.add(l - 1);
+                    }
+                    break_points.add(instructions.getOperand(i) - 1);
                 }
-                break_points.add(ts.getDefault() - 1);
             }
         }
     }
@@ -65,15 +67,16 @@ public class SwitchGraphProducerStep implements GraphProducerStep {
             // Now we go through and form an edge from any block and the block
             // it flows (or jumps) into next.
             OpcodeBlock block = block_list.get(i);
-            if (!(block.getLast() instanceof SwitchInsn)) {
+            Insn last = block.getLast();
+            if (!(last instanceof SwitchInsn)) {
                 continue;
             }
             SwitchOpcodeBlock replacement = new SwitchOpcodeBlock(block.getStart(), block.getEnd());
-            replacement.getOpcodes().addAll(block.getOpcodes());
+            replacement.setOpcodes(block.getOpcodes());
             replacement.setTarget(block.getTarget());
             block_list.set(i, replacement);
             GraphOperation.remap(block_list, block, replacement);
-            SwitchInsn ts = (SwitchInsn) block.getLast();
+            SwitchInsn ts = (SwitchInsn) last;
             for (Map.Entry<Integer, Integer> r : ts.getTargets().entrySet()) {
                 replacement.getAdditionalTargets().put(r.getKey(), GraphProducerStep.find(block_list, r.getValue()));
             }
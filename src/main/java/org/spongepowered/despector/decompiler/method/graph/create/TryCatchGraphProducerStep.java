@@ -95,7 +95,7 @@ public class TryCatchGraphProducerStep implements GraphProducerStep {
             }
             OpcodeBlock end = block_list.get(block_list.indexOf(GraphProducerStep.find(block_list, tc.getEnd())));
             OpcodeBlock handler = GraphProducerStep.find(block_list, tc.getCatch());
-            if (end.getEnd() == tc.getEnd() && end.getLast().getOpcode() == Insn.ARETURN) {
+            if (end.getEnd() == tc.getEnd() && end.getLastOpcode() == Insn.ARETURN) {
                 end = block_list.get(block_list.indexOf(GraphProducerStep.find(block_list, tc.getEnd() + 1)));
             }
             block_list.add(block_list.indexOf(start), start_marker);
@@ -31,6 +31,7 @@ import org.spongepowered.despector.ast.insn.Instruction;
 import org.spongepowered.despector.ast.stmt.StatementBlock;
 import org.spongepowered.despector.ast.stmt.branch.Switch;
 import org.spongepowered.despector.decompiler.ir.Insn;
+import org.spongepowered.despector.decompiler.ir.InsnBlock;
 import org.spongepowered.despector.decompiler.method.StatementBuilder;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
 
@@ -74,10 +75,11 @@ public class SwitchBlockSection extends BlockSection {
 
     @Override
     public void appendTo(StatementBlock block, Locals locals, Deque<Instruction> stack) {
-        Insn last = this.switchblock.getLast();
-        this.switchblock.getOpcodes().remove(last);
+        // the switch itself is left out of the statements of its block
+        List<Insn> opcodes = this.switchblock.getOpcodes();
+        this.switchblock.setOpcodes(InsnBlock.Range.slice(opcodes, 0, opcodes.size() - 1));
         StatementBuilder.appendBlock(this.switchblock, block, locals, stack);
-        this.switchblock.getOpcodes().add(last);
+        this.switchblock.setOpcodes(opcodes);
         Switch sswitch = new Switch(stack.pop());
         for (SwitchCaseBlockSection cs : this.cases) {
             StatementBlock body = new StatementBlock(StatementBlock.Type.SWITCH);
@@ -25,6 +25,7 @@
 package org.spongepowered.despector.decompiler.method.graph.data.opcode;
 
 import org.spongepowered.despector.decompiler.ir.Insn;
+import org.spongepowered.despector.decompiler.ir.InsnBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.block.BlockSection;
 
 import java.util.ArrayList;
@@ -42,7 +43,7 @@ public abstract class OpcodeBlock {
 
     protected int start_pc;
     protected int end_pc;
-    protected final List<Insn> opcodes = new ArrayList<>();
+    protected List<Insn> opcodes = new ArrayList<>();
     protected OpcodeBlock target;
 
     protected Set<OpcodeBlock> targetted_by = new HashSet<>();
@@ -78,10 +79,29 @@ public abstract class OpcodeBlock {
         return this.opcodes;
     }
 
+    /**
+     * Sets the opcodes that are part of this block. The list is used directly
+     * rather than copied.
+     */
+    public void setOpcodes(List<Insn> opcodes) {
+        this.opcodes = opcodes;
+    }
+
     public Insn getLast() {
         return this.opcodes.get(this.opcodes.size() - 1);
     }
 
+    /**
+     * Gets the opcode of the last instruction of this block.
+     */
+    public int getLastOpcode() {
+        InsnBlock.Range range = InsnBlock.Range.unmodified(this.opcodes);
+        if (range != null) {
+            return range.getBlock().getOpcode(range.getStart() + range.size() - 1);
+        }
+        return getLast().getOpcode();
+    }
+
     /**
      * Gets the block targeted by this block. If this block ends with a
      * condition jump the target will be the block that control will be passed
@@ -0,0 +1,400 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.method.graph.data.opcode;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import javax.annotation.Nullable;
+
+/**
+ * A list of opcode blocks which indexes the position of each block so that
+ * {@link #indexOf} and {@link #contains} are constant time. The index is built
+ * lazily on the first lookup and is then updated in place by every edit of the
+ * list.
+ *
+ * <p>Sub lists are views backed by this list which share its index, a sub
+ * list copies its range on its first modification so regions may be edited by
+ * the processors they are passed to without affecting the list they were taken
+ * from.</p>
+ */
+public class OpcodeBlockList extends AbstractList<OpcodeBlock> implements RandomAccess {
+
+    /**
+     * Gets a read-only view of the given list with the given block appended
+     * after its last element, or the list itself if the block is null.
+     */
+    public static List<OpcodeBlock> withTail(List<OpcodeBlock> blocks, @Nullable OpcodeBlock tail) {
+        if (tail == null) {
+            return blocks;
+        }
+        return new TailView(blocks, tail);
+    }
+
+    /**
+     * Gets the blocks in the given range of the list as a region which may be
+     * modified without affecting the list. If the list is indexed, or is itself
+     * a region of an indexed list, the region is a view sharing its index,
+     * otherwise the range is copied.
+     */
+    public static List<OpcodeBlock> region(List<OpcodeBlock> blocks, int from, int to) {
+        if (blocks instanceof OpcodeBlockList || blocks instanceof SubView) {
+            return blocks.subList(from, to);
+        }
+        return new OpcodeBlockList(blocks.subList(from, to));
+    }
+
+    private final ArrayList<OpcodeBlock> blocks;
+    @Nullable private Map<OpcodeBlock, Position> index;
+    // set if a block occurs more than once, the index only holds the first
+    // occurrence of a block so edits then rebuild it rather than update it
+    private boolean duplicates;
+    private int version;
+
+    public OpcodeBlockList() {
+        this.blocks = new ArrayList<>();
+    }
+
+    public OpcodeBlockList(Collection<OpcodeBlock> blocks) {
+        this.blocks = new ArrayList<>(blocks);
+    }
+
+    @Override
+    public OpcodeBlock get(int i) {
+        return this.blocks.get(i);
+    }
+
+    @Override
+    public int size() {
+        return this.blocks.size();
+    }
+
+    @Override
+    public OpcodeBlock set(int i, OpcodeBlock block) {
+        OpcodeBlock old = this.blocks.set(i, block);
+        if (old == block) {
+            return old;
+        }
+        this.version++;
+        if (this.index != null) {
+            if (this.duplicates || this.index.containsKey(block)) {
+                this.index = null;
+            } else {
+                this.index.put(block, this.index.remove(old));
+            }
+        }
+        return old;
+    }
+
+    @Override
+    public boolean add(OpcodeBlock block) {
+        int i = this.blocks.size();
+        this.blocks.add(block);
+        this.modCount++;
+        this.version++;
+        if (this.index != null && this.index.putIfAbsent(block, new Position(i)) != null) {
+            this.duplicates = true;
+        }
+        return true;
+    }
+
+    @Override
+    public void add(int i, OpcodeBlock block) {
+        if (i == this.blocks.size()) {
+            add(block);
+            return;
+        }
+        this.blocks.add(i, block);
+        this.modCount++;
+        this.version++;
+        if (this.index != null) {
+            if (this.duplicates || this.index.containsKey(block)) {
+                this.index = null;
+            } else {
+                shift(i + 1, 1);
+                this.index.put(block, new Position(i));
+            }
+        }
+    }
+
+    @Override
+    public OpcodeBlock remove(int i) {
+        OpcodeBlock old = this.blocks.remove(i);
+        this.modCount++;
+        this.version++;
+        if (this.index != null) {
+            if (this.duplicates) {
+                this.index = null;
+            } else {
+                this.index.remove(old);
+                shift(i, -1);
+            }
+        }
+        return old;
+    }
+
+    /**
+     * Moves the indexed positions of all blocks from the given index onwards
+     * by the given amount.
+     */
+    private void shift(int from, int delta) {
+        for (int i = from; i < this.blocks.size(); i++) {
+            this.index.get(this.blocks.get(i)).index += delta;
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends OpcodeBlock> c) {
+        for (OpcodeBlock block : c) {
+            add(block);
+        }
+        return !c.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        this.blocks.clear();
+        this.modCount++;
+        this.version++;
+        this.index = null;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof OpcodeBlock)) {
+            return -1;
+        }
+        Map<OpcodeBlock, Position> index = this.index;
+        if (index == null) {
+            index = new IdentityHashMap<>(this.blocks.size() * 2);
+            this.duplicates = false;
+            for (int i = 0; i < this.blocks.size(); i++) {
+                if (index.putIfAbsent(this.blocks.get(i), new Position(i)) != null) {
+                    this.duplicates = true;
+                }
+            }
+            this.index = index;
+        }
+        Position pos = index.get(o);
+        return pos == null ? -1 : pos.index;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) != -1;
+    }
+
+    @Override
+    public List<OpcodeBlock> subList(int from, int to) {
+        if (from < 0 || to > this.blocks.size() || from > to) {
+            throw new IndexOutOfBoundsException("Range: " + from + "-" + to + ", Size: " + this.blocks.size());
+        }
+        return new SubView(this, null, from, to);
+    }
+
+    /**
+     * The indexed position of a block, mutable so that positions may be
+     * shifted in place when blocks are inserted or removed.
+     */
+    private static class Position {
+
+        int index;
+
+        Position(int index) {
+            this.index = index;
+        }
+
+    }
+
+    /**
+     * A range of an indexed list. The view shares the index of the list until
+     * it is first modified, at which point it copies its range into a list of
+     * its own and leaves the backing list unchanged. Sub lists of a view are
+     * themselves views of the same backing list.
+     */
+    private static class SubView extends AbstractList<OpcodeBlock> implements RandomAccess {
+
+        private final OpcodeBlockList list;
+        @Nullable private final SubView parent;
+        private final int from;
+        private final int to;
+        private final int expected_version;
+        @Nullable private OpcodeBlockList copy;
+
+        SubView(OpcodeBlockList list, @Nullable SubView parent, int from, int to) {
+            this.list = list;
+            this.parent = parent;
+            this.from = from;
+            this.to = to;
+            this.expected_version = list.version;
+        }
+
+        private void checkBacking() {
+            if (this.list.version != this.expected_version) {
+                throw new ConcurrentModificationException();
+            }
+            for (SubView view = this.parent; view != null; view = view.parent) {
+                if (view.copy != null) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+
+        private OpcodeBlockList copy() {
+            if (this.copy == null) {
+                checkBacking();
+                this.copy = new OpcodeBlockList(this.list.blocks.subList(this.from, this.to));
+            }
+            return this.copy;
+        }
+
+        @Override
+        public OpcodeBlock get(int i) {
+            if (this.copy != null) {
+                return this.copy.get(i);
+            }
+            checkBacking();
+            if (i < 0 || i >= this.to - this.from) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+            }
+            return this.list.get(this.from + i);
+        }
+
+        @Override
+        public int size() {
+            if (this.copy != null) {
+                return this.copy.size();
+            }
+            return this.to - this.from;
+        }
+
+        @Override
+        public OpcodeBlock set(int i, OpcodeBlock block) {
+            return copy().set(i, block);
+        }
+
+        @Override
+        public void add(int i, OpcodeBlock block) {
+            copy().add(i, block);
+            this.modCount++;
+        }
+
+        @Override
+        public OpcodeBlock remove(int i) {
+            OpcodeBlock old = copy().remove(i);
+            this.modCount++;
+            return old;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            if (this.copy != null) {
+                return this.copy.indexOf(o);
+            }
+            checkBacking();
+            int i = this.list.indexOf(o);
+            if (i >= this.from && i < this.to) {
+                return i - this.from;
+            } else if (i == -1 || i >= this.to) {
+                return -1;
+            }
+            // the block also occurs before this range, look for a later
+            // occurrence within it
+            for (int j = this.from; j < this.to; j++) {
+                if (this.list.get(j) == o) {
+                    return j - this.from;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) != -1;
+        }
+
+        @Override
+        public List<OpcodeBlock> subList(int from, int to) {
+            if (this.copy != null) {
+                return this.copy.subList(from, to);
+            }
+            checkBacking();
+            if (from < 0 || to > size() || from > to) {
+                throw new IndexOutOfBoundsException("Range: " + from + "-" + to + ", Size: " + size());
+            }
+            return new SubView(this.list, this, this.from + from, this.from + to);
+        }
+
+    }
+
+    /**
+     * A read-only view of a list with one extra block after its end.
+     */
+    private static class TailView extends AbstractList<OpcodeBlock> implements RandomAccess {
+
+        private final List<OpcodeBlock> list;
+        private final OpcodeBlock tail;
+
+        TailView(List<OpcodeBlock> list, OpcodeBlock tail) {
+            this.list = list;
+            this.tail = tail;
+        }
+
+        @Override
+        public OpcodeBlock get(int i) {
+            if (i == this.list.size()) {
+                return this.tail;
+            }
+            return this.list.get(i);
+        }
+
+        @Override
+        public int size() {
+            return this.list.size() + 1;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            int i = this.list.indexOf(o);
+            if (i == -1 && o == this.tail) {
+                return this.list.size();
+            }
+            return i;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) != -1;
+        }
+
+    }
+
+}
@@ -191,7 +191,7 @@ public class BreakPrePassOperation implements GraphOperation {
             if (type != null) {
                 BreakMarkerOpcodeBlock replacement = new BreakMarkerOpcodeBlock(ggoto.getStart(), ggoto.getEnd(), type);
                 replacement.setTarget(ggoto.getTarget());
-                replacement.getOpcodes().addAll(ggoto.getOpcodes());
+                replacement.setOpcodes(ggoto.getOpcodes());
                 replacement.setMarked(found.condition);
                 blocks.set(blocks.indexOf(ggoto), replacement);
                 GraphOperation.remap(blocks, ggoto, replacement);
@@ -25,6 +25,7 @@
 package org.spongepowered.despector.decompiler.method.graph.operate;
 
 import org.spongepowered.despector.decompiler.ir.Insn;
+import org.spongepowered.despector.decompiler.ir.InsnBlock;
 import org.spongepowered.despector.decompiler.method.PartialMethod;
 import org.spongepowered.despector.decompiler.method.graph.GraphOperation;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.BodyOpcodeBlock;
@@ -56,12 +57,9 @@ public class JumpSeparateOperation implements GraphOperation {
                     fblocks.add(block);
                     continue;
                 }
-                for(int i = 0; i < block.getOpcodes().size() - 1; i++) {
-                    header.getOpcodes().add(block.getOpcodes().get(i));
-                }
-                Insn ggoto = block.getOpcodes().get(block.getOpcodes().size() - 1);
-                block.getOpcodes().clear();
-                block.getOpcodes().add(ggoto);
+                List<Insn> opcodes = block.getOpcodes();
+                header.setOpcodes(InsnBlock.Range.slice(opcodes, 0, opcodes.size() - 1));
+                block.setOpcodes(InsnBlock.Range.slice(opcodes, opcodes.size() - 1, opcodes.size()));
                 block.setBounds(block.getEnd(), block.getEnd());
                 // Have to ensure that we remap any blocks that were
                 // targeting this block to target the header.
@@ -75,12 +73,9 @@ public class JumpSeparateOperation implements GraphOperation {
                 if (cond_start > 0) {
                     OpcodeBlock header = new BodyOpcodeBlock(block.getStart(), block.getStart() + cond_start - 1);
                     block.setBounds(block.getStart() + cond_start, block.getEnd());
-                    for (int i = 0; i < cond_start; i++) {
-                        header.getOpcodes().add(block.getOpcodes().get(i));
-                    }
-                    for (int i = cond_start - 1; i >= 0; i--) {
-                        block.getOpcodes().remove(i);
-                    }
+                    List<Insn> opcodes = block.getOpcodes();
+                    header.setOpcodes(InsnBlock.Range.slice(opcodes, 0, cond_start));
+                    block.setOpcodes(InsnBlock.Range.slice(opcodes, cond_start, opcodes.size()));
                     // Have to ensure that we remap any blocks that were
                     // targeting this block to target the header.
                     GraphOperation.remap(blocks, block, header);
@@ -29,6 +29,7 @@ import static com.google.common.base.Preconditions.checkState;
 import org.spongepowered.despector.ast.Locals;
 import org.spongepowered.despector.ast.insn.condition.Condition;
 import org.spongepowered.despector.decompiler.method.ConditionBuilder;
+import org.spongepowered.despector.decompiler.method.MethodBudget;
 import org.spongepowered.despector.decompiler.method.PartialMethod;
 import org.spongepowered.despector.decompiler.method.PartialMethod.TryCatchRegion;
 import org.spongepowered.despector.decompiler.method.graph.GraphOperation;
@@ -77,6 +78,7 @@ public class TernaryPrePassOperation implements GraphOperation {
     }
 
     private static int compileTernary(List<OpcodeBlock> blocks, int end, Locals locals) {
+        MethodBudget.step();
         if (end < 4) {
             return 0;
         }
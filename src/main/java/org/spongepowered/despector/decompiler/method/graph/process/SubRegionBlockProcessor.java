@@ -26,6 +26,7 @@ package org.spongepowered.despector.decompiler.method.graph.process;
 
 import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.error.BudgetExceededException;
 import org.spongepowered.despector.decompiler.ir.Insn;
 import org.spongepowered.despector.decompiler.method.PartialMethod;
 import org.spongepowered.despector.decompiler.method.graph.GraphProcessor;
@@ -36,6 +37,7 @@ import org.spongepowered.despector.decompiler.method.graph.data.block.InlineBloc
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.ConditionalOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.GotoOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlockList;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.ProcessedOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.TryCatchMarkerOpcodeBlock;
 import org.spongepowered.despector.util.AstUtil;
@@ -88,7 +90,7 @@ public class SubRegionBlockProcessor implements GraphProcessor {
             }
         }
         if (end == -1) {
-            end = RegionProcessor.getRegionEnd(blocks, null, i);
+            end = RegionProcessor.getRegionEnd(partial, blocks, null, i);
         } else if (end != blocks.size() - 1) {
             end++;
         }
@@ -104,10 +106,7 @@ public class SubRegionBlockProcessor implements GraphProcessor {
             end--;
         }
 
-        List<OpcodeBlock> region = new ArrayList<>();
-        for (int o = i; o < end; o++) {
-            region.add(blocks.get(o));
-        }
+        List<OpcodeBlock> region = OpcodeBlockList.region(blocks, i, end);
 
         OpcodeBlock first = region.get(0);
         if (first instanceof ConditionalOpcodeBlock && AstUtil.hasStartingRequirement(first.getOpcodes())
@@ -121,6 +120,8 @@ public class SubRegionBlockProcessor implements GraphProcessor {
         // process the region down to a single block
         try {
             final_blocks.add(partial.getDecompiler().processRegion(partial, region, last, targeted_in_future ? 0 : 1));
+        } catch (BudgetExceededException e) {
+            throw e;
         } catch (Exception e) {
             if (ConfigManager.getConfig().print_opcodes_on_error) {
                 List<String> comment = new ArrayList<>();
@@ -25,6 +25,7 @@
 package org.spongepowered.despector.decompiler.method.graph.process;
 
 import org.spongepowered.despector.config.ConfigManager;
+import org.spongepowered.despector.decompiler.error.BudgetExceededException;
 import org.spongepowered.despector.decompiler.ir.Insn;
 import org.spongepowered.despector.decompiler.ir.JumpInsn;
 import org.spongepowered.despector.decompiler.ir.SwitchInsn;
@@ -37,6 +38,7 @@ import org.spongepowered.despector.decompiler.method.graph.data.block.SwitchBloc
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.BodyOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.GotoOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlockList;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.SwitchOpcodeBlock;
 
 import java.util.ArrayList;
@@ -72,7 +74,7 @@ public class SwitchBlockProcessor implements GraphProcessor {
                 sswitch.addCase(cs);
                 cases.put(l.getValue(), cs);
                 cs.getTargets().add(l.getKey());
-                List<OpcodeBlock> case_region = new ArrayList<>();
+                List<OpcodeBlock> case_region = new OpcodeBlockList();
                 OpcodeBlock block = sblock.getAdditionalTargets().get(l.getKey());
                 case_region.add(block);
                 int start = blocks.indexOf(block) + 1;
@@ -94,7 +96,7 @@ public class SwitchBlockProcessor implements GraphProcessor {
                     farthest_break = last.getStart();
                 }
                 if (last instanceof BodyOpcodeBlock) {
-                    int op = last.getLast().getOpcode();
+                    int op = last.getLastOpcode();
                     if (op != Insn.RETURN && op != Insn.ARETURN) {
                         all_return = false;
                     }
@@ -109,6 +111,8 @@ public class SwitchBlockProcessor implements GraphProcessor {
                 }
                 try {
                     partial.getDecompiler().flattenGraph(partial, case_region, case_region.size(), cs.getBody());
+                } catch (BudgetExceededException e) {
+                    throw e;
                 } catch (Throwable e) {
                     if (ConfigManager.getConfig().print_opcodes_on_error) {
                         List<String> comment = new ArrayList<>();
@@ -131,7 +135,7 @@ public class SwitchBlockProcessor implements GraphProcessor {
                 cs = sswitch.new SwitchCaseBlockSection();
                 cases.put(ts.getDefault(), cs);
                 sswitch.addCase(cs);
-                List<OpcodeBlock> case_region = new ArrayList<>();
+                List<OpcodeBlock> case_region = new OpcodeBlockList();
                 OpcodeBlock block = sblock.getAdditionalTargets().get(-1);
                 case_region.add(block);
                 int start = blocks.indexOf(block) + 1;
@@ -154,6 +158,8 @@ public class SwitchBlockProcessor implements GraphProcessor {
                 cs.setDefault(true);
                 try {
                     partial.getDecompiler().flattenGraph(partial, case_region, case_region.size(), cs.getBody());
+                } catch (BudgetExceededException e) {
+                    throw e;
                 } catch (Exception e) {
                     if (ConfigManager.getConfig().print_opcodes_on_error) {
                         List<String> comment = new ArrayList<>();
@@ -28,6 +28,7 @@ import static com.google.common.base.Preconditions.checkState;
 
 import org.spongepowered.despector.ast.Locals;
 import org.spongepowered.despector.config.ConfigManager;
+import org.spongepowered.despector.decompiler.error.BudgetExceededException;
 import org.spongepowered.despector.decompiler.ir.Insn;
 import org.spongepowered.despector.decompiler.ir.IntInsn;
 import org.spongepowered.despector.decompiler.method.PartialMethod;
@@ -39,6 +40,7 @@ import org.spongepowered.despector.decompiler.method.graph.data.block.TryCatchBl
 import org.spongepowered.despector.decompiler.method.graph.data.block.TryCatchBlockSection.CatchBlockSection;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.GotoOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlockList;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.TryCatchMarkerOpcodeBlock;
 
 import java.util.ArrayList;
@@ -56,7 +58,7 @@ public class TryCatchBlockProcessor implements GraphProcessor {
         if (region_start instanceof TryCatchMarkerOpcodeBlock) {
             TryCatchMarkerOpcodeBlock marker = (TryCatchMarkerOpcodeBlock) region_start;
             checkState(marker.getType() == TryCatchMarkerType.START);
-            List<OpcodeBlock> body = new ArrayList<>();
+            List<OpcodeBlock> body = new OpcodeBlockList();
             List<TryCatchMarkerOpcodeBlock> all_ends = new ArrayList<>();
 
             for (int l = blocks.indexOf(marker.getEndMarker()); l < blocks.size(); l++) {
@@ -84,10 +86,14 @@ public class TryCatchBlockProcessor implements GraphProcessor {
             if (next instanceof GotoOpcodeBlock) {
                 end_of_catch = next.getTarget();
                 last_block = blocks.indexOf(end_of_catch);
-                if (last_block > 1) {
-                    OpcodeBlock prev = blocks.get(last_block - 1);
+                if (last_block > 0) {
+                    // the block after the try statement is left to be
+                    // processed next, along with any try statement starting
+                    // at it
+                    last_block--;
+                    OpcodeBlock prev = blocks.get(last_block);
                     if (prev instanceof TryCatchMarkerOpcodeBlock && ((TryCatchMarkerOpcodeBlock) prev).getType() == TryCatchMarkerType.START) {
-                        last_block -= 2;
+                        last_block--;
                     }
                 }
             } else {
@@ -96,6 +102,8 @@ public class TryCatchBlockProcessor implements GraphProcessor {
             TryCatchBlockSection try_section = new TryCatchBlockSection();
             try {
                 partial.getDecompiler().flattenGraph(partial, body, body.size(), try_section.getBody());
+            } catch (BudgetExceededException e) {
+                throw e;
             } catch (Exception e) {
                 if (ConfigManager.getConfig().print_opcodes_on_error) {
                     List<String> comment = new ArrayList<>();
@@ -146,7 +154,7 @@ public class TryCatchBlockProcessor implements GraphProcessor {
                         Insn op = it.next();
                         if (op.getOpcode() == Insn.LOCAL_STORE) {
                             local_num = ((IntInsn) op).getValue();
-                            label_index = catch_start.getStart() - (catch_start.getOpcodes().size() - k);
+                            label_index = catch_start.getStart() + k + 1;
                             it.remove();
                             break;
                         } else if (op.getOpcode() == Insn.POP) {
@@ -156,10 +164,14 @@ public class TryCatchBlockProcessor implements GraphProcessor {
                         k++;
                     }
                     Locals.LocalInstance local = label_index == -1 ? null : partial.getLocals().getLocal(local_num).getInstance(label_index);
-                    List<OpcodeBlock> catch_body = new ArrayList<>();
+                    List<OpcodeBlock> catch_body = new OpcodeBlockList();
                     catch_body.add(catch_start);
                     int stop_index = -1;
                     if (end_of_catch != null && last_block != -1) {
+                        // the jump out of the catch block or the block after
+                        // the try statement is collected but not part of the
+                        // body, a catch which ends by throwing or returning
+                        // runs up to the next catch instead
                         for (int j = end; j < blocks.size(); j++) {
                             OpcodeBlock cnext = blocks.get(j);
                             if (cnext instanceof TryCatchMarkerOpcodeBlock) {
@@ -167,20 +179,24 @@ public class TryCatchBlockProcessor implements GraphProcessor {
                             }
                             catch_body.add(cnext);
                             if (cnext instanceof GotoOpcodeBlock && cnext.getTarget() == end_of_catch) {
+                                stop_index = catch_body.size() - 1;
                                 break;
                             } else if (cnext == end_of_catch) {
+                                stop_index = catch_body.size() - 1;
                                 all_ends.clear();
                                 break;
                             }
                         }
-                        stop_index = catch_body.size() - 1;
+                        if (stop_index == -1) {
+                            stop_index = catch_body.size();
+                        }
                     } else {
                         // TODO: if we have no lvt I'll need to do some
                         // backup check of checking where the catch var is
                         // last used and stopping there
                         for (int j = end; j < blocks.size(); j++) {
                             OpcodeBlock cnext = blocks.get(j);
-                            if (cnext.getEnd() > local.getEnd()) {
+                            if (cnext.getEnd() > local.getEnd() || isCatchOf(cnext, all_ends)) {
                                 break;
                             }
                             catch_body.add(cnext);
@@ -192,6 +208,8 @@ public class TryCatchBlockProcessor implements GraphProcessor {
                     CatchBlockSection cblock = new CatchBlockSection(extra_exceptions, local);
                     try {
                         partial.getDecompiler().flattenGraph(partial, catch_body, stop_index, cblock.getBody());
+                    } catch (BudgetExceededException e) {
+                        throw e;
                     } catch (Exception e) {
                         if (ConfigManager.getConfig().print_opcodes_on_error) {
                             List<String> comment = new ArrayList<>();
@@ -215,4 +233,20 @@ public class TryCatchBlockProcessor implements GraphProcessor {
         return -1;
     }
 
+    /**
+     * Gets if the given block is the start of a catch of one of the try
+     * regions ended by the given end markers.
+     */
+    private static boolean isCatchOf(OpcodeBlock block, List<TryCatchMarkerOpcodeBlock> ends) {
+        if (!(block instanceof TryCatchMarkerOpcodeBlock) || ((TryCatchMarkerOpcodeBlock) block).getType() != TryCatchMarkerType.CATCH) {
+            return false;
+        }
+        for (TryCatchMarkerOpcodeBlock end : ends) {
+            if (end.getAsmNode() == ((TryCatchMarkerOpcodeBlock) block).getAsmNode()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 }
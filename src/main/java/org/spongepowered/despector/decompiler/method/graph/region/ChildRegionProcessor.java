@@ -36,6 +36,7 @@ import org.spongepowered.despector.decompiler.method.graph.data.opcode.BreakMark
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.ConditionalOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.GotoOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlockList;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.ProcessedOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.SwitchOpcodeBlock;
 
@@ -92,11 +93,7 @@ public class ChildRegionProcessor implements RegionProcessor {
                     }
                 }
 
-                List<OpcodeBlock> subregion = new ArrayList<>();
-                for (int o = i; o <= last; o++) {
-                    OpcodeBlock n = region.get(o);
-                    subregion.add(n);
-                }
+                List<OpcodeBlock> subregion = OpcodeBlockList.region(region, i, last + 1);
 
                 OpcodeBlock sub_ret = last >= region.size() ? ret : region.get(last);
                 List<BlockSection> secs = new ArrayList<>();
@@ -123,7 +120,7 @@ public class ChildRegionProcessor implements RegionProcessor {
             // region.
             int end = -1;
             if (next.getTarget() == ret) {
-                end = RegionProcessor.getRegionEnd(region, ret, i);
+                end = RegionProcessor.getRegionEnd(partial, region, ret, i);
                 if (end == region.size()) {
                     OpcodeBlock last = region.get(region.size() - 1);
                     boolean is_break = false;
@@ -241,7 +238,7 @@ public class ChildRegionProcessor implements RegionProcessor {
                 }
                 continue;
             } else {
-                end = RegionProcessor.getRegionEnd(region, ret, i);
+                end = RegionProcessor.getRegionEnd(partial, region, ret, i);
             }
 
             if (end != -1) {
@@ -249,11 +246,7 @@ public class ChildRegionProcessor implements RegionProcessor {
                     System.out.println("Child region found from " + next.getStart() + " to " + region.get(end - 1).getStart());
                 }
 
-                List<OpcodeBlock> subregion = new ArrayList<>();
-                for (int o = i; o < end; o++) {
-                    OpcodeBlock n = region.get(o);
-                    subregion.add(n);
-                }
+                List<OpcodeBlock> subregion = OpcodeBlockList.region(region, i, end);
 
                 OpcodeBlock sub_ret = end >= region.size() ? ret : region.get(end);
                 BlockSection s = partial.getDecompiler().processRegion(partial, subregion, sub_ret, 1);
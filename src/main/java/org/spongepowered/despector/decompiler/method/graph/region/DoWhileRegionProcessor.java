@@ -31,6 +31,7 @@ import org.spongepowered.despector.ast.insn.condition.Condition;
 import org.spongepowered.despector.ast.insn.cst.IntConstant;
 import org.spongepowered.despector.decompiler.method.ConditionBuilder;
 import org.spongepowered.despector.decompiler.method.PartialMethod;
+import org.spongepowered.despector.decompiler.method.graph.DominatorTree;
 import org.spongepowered.despector.decompiler.method.graph.RegionProcessor;
 import org.spongepowered.despector.decompiler.method.graph.data.block.BlockSection;
 import org.spongepowered.despector.decompiler.method.graph.data.block.DoWhileBlockSection;
@@ -73,10 +74,20 @@ public class DoWhileRegionProcessor implements RegionProcessor {
             cond_start++;
             cond = ConditionBuilder.makeCondition(condition_blocks, partial.getLocals(), start, ret);
 
-            boolean targetted_by_previous_jump = condition_blocks.get(0).getTargettedBy().stream()
-                    .filter((b) -> b.getStart() < start.getStart()).findAny().isPresent();
+            // if the condition is the header of the loop then it is entered
+            // by a jump from before the body and this is a while loop with
+            // its condition at the end
+            ConditionalOpcodeBlock header = condition_blocks.get(0);
+            DominatorTree dominators = partial.getDominators();
+            boolean condition_first;
+            if (dominators.contains(header)) {
+                condition_first = dominators.isLoopHeader(header);
+            } else {
+                condition_first = header.getTargettedBy().stream()
+                        .filter((b) -> b.getStart() < start.getStart()).findAny().isPresent();
+            }
 
-            if (targetted_by_previous_jump) {
+            if (condition_first) {
                 WhileBlockSection section = new WhileBlockSection(cond);
                 for (int i = 0; i < cond_start; i++) {
                     next = region.get(i);
@@ -35,6 +35,7 @@ import org.spongepowered.despector.decompiler.method.graph.data.block.WhileBlock
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.ConditionalOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.GotoOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlockList;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -94,11 +95,7 @@ public class IfBlockRegionProcessor implements RegionProcessor {
         for (int i = body_start; i < else_start; i++) {
             next = region.get(i);
             if (next instanceof ConditionalOpcodeBlock) {
-                List<OpcodeBlock> subregion = new ArrayList<>();
-                for (int o = i; o < else_start; o++) {
-                    OpcodeBlock n = region.get(o);
-                    subregion.add(n);
-                }
+                List<OpcodeBlock> subregion = OpcodeBlockList.region(region, i, else_start);
 
                 OpcodeBlock sub_ret = else_start >= region.size() ? ret : region.get(else_start);
                 BlockSection s = partial.getDecompiler().processRegion(partial, subregion, sub_ret, 1);
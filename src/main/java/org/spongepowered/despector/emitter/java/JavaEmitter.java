@@ -27,7 +27,7 @@ package org.spongepowered.despector.emitter.java;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.emitter.Emitter;
 import org.spongepowered.despector.emitter.Emitters;
-import org.spongepowered.despector.parallel.Timing;
+import org.spongepowered.despector.util.metrics.Metrics;
 
 /**
  * A java source emitter.
@@ -45,7 +45,7 @@ public class JavaEmitter implements Emitter<JavaEmitterContext> {
         setup(ctx);
         long emitting_start = System.nanoTime();
         ctx.emitOuterType(type);
-        Timing.time_emitting += System.nanoTime() - emitting_start;
+        Metrics.EMIT.recordSince(emitting_start);
     }
 
 }
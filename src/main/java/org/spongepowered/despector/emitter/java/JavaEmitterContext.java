@@ -469,7 +469,7 @@ public class JavaEmitterContext extends AbstractEmitterContext {
      */
     public void flush() {
         try {
-            this.output.write(this.line_buffer.toString());
+            this.output.append(this.line_buffer);
         } catch (IOException e) {
             e.printStackTrace();
         }
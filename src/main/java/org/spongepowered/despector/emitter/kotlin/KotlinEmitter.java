@@ -29,6 +29,7 @@ import org.spongepowered.despector.emitter.Emitter;
 import org.spongepowered.despector.emitter.Emitters;
 import org.spongepowered.despector.emitter.java.ImportManager;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
+import org.spongepowered.despector.util.metrics.Metrics;
 
 /**
  * A kotlin source emitter.
@@ -54,7 +55,9 @@ public class KotlinEmitter implements Emitter<JavaEmitterContext> {
     @Override
     public void emit(JavaEmitterContext ctx, TypeEntry type) {
         setup(ctx);
+        long emitting_start = System.nanoTime();
         ctx.emitOuterType(type);
+        Metrics.EMIT.recordSince(emitting_start);
     }
 
 }
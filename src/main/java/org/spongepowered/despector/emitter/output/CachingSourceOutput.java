@@ -0,0 +1,200 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.emitter.output;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An output which stores the sources of expected types in a
+ * {@link SourceCache} as they are written to another output.
+ */
+public class CachingSourceOutput implements SourceOutput {
+
+    private final SourceOutput delegate;
+    private final SourceCache cache;
+    private final Map<String, String> expected = new ConcurrentHashMap<>();
+    private final Set<String> discarded = ConcurrentHashMap.newKeySet();
+    private final List<SourceCache.Entry> pending = new ArrayList<>();
+
+    public CachingSourceOutput(SourceOutput delegate, SourceCache cache) {
+        this.delegate = checkNotNull(delegate, "delegate");
+        this.cache = checkNotNull(cache, "cache");
+    }
+
+    /**
+     * Gets the cache that sources are stored in.
+     */
+    public SourceCache getCache() {
+        return this.cache;
+    }
+
+    /**
+     * Marks that the source of the given top level type is to be stored under
+     * the given key once it is written.
+     */
+    public void expect(String type_name, String key) {
+        this.expected.put(type_name, key);
+    }
+
+    /**
+     * Writes the given cached source to the output. The source is announced
+     * and written together with the next files announced through
+     * {@link #begin(Collection)} so that it takes the same place in their
+     * order as it would have had it been emitted.
+     */
+    public synchronized void writeCached(SourceCache.Entry entry) {
+        this.pending.add(checkNotNull(entry, "entry"));
+    }
+
+    @Override
+    public void begin(Collection<String> paths) {
+        List<SourceCache.Entry> cached;
+        synchronized (this) {
+            cached = new ArrayList<>(this.pending);
+            this.pending.clear();
+        }
+        if (cached.isEmpty()) {
+            this.delegate.begin(paths);
+            return;
+        }
+        List<String> all = new ArrayList<>(paths);
+        for (SourceCache.Entry entry : cached) {
+            all.add(entry.getPath());
+        }
+        this.delegate.begin(all);
+        try {
+            for (SourceCache.Entry entry : cached) {
+                try (Writer writer = this.delegate.open(entry.getPath())) {
+                    writer.write(entry.getSource());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Writer open(String path) throws IOException {
+        int ext = path.lastIndexOf('.');
+        String key = this.expected.remove(ext == -1 ? path : path.substring(0, ext));
+        Writer writer = this.delegate.open(path);
+        if (key == null) {
+            return writer;
+        }
+        return new CachingWriter(writer, key, path);
+    }
+
+    @Override
+    public void discard(String path) {
+        this.discarded.add(path);
+        this.delegate.discard(path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            // cached sources not followed by any other files
+            begin(Collections.emptyList());
+        } finally {
+            this.delegate.close();
+        }
+    }
+
+    /**
+     * A writer which keeps a copy of everything written to the output so that
+     * it can be stored in the cache once complete.
+     */
+    private class CachingWriter extends Writer {
+
+        private final Writer output;
+        private final String key;
+        private final String path;
+        private final StringBuilder source = new StringBuilder();
+
+        CachingWriter(Writer output, String key, String path) {
+            this.output = output;
+            this.key = key;
+            this.path = path;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            this.output.write(c);
+            this.source.append((char) c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            this.output.write(cbuf, off, len);
+            this.source.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            this.output.write(str, off, len);
+            this.source.append(str, off, off + len);
+        }
+
+        @Override
+        public Writer append(CharSequence csq) throws IOException {
+            this.output.append(csq);
+            this.source.append(csq);
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.output.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.output.close();
+            if (CachingSourceOutput.this.discarded.remove(this.path)) {
+                return;
+            }
+            try {
+                CachingSourceOutput.this.cache.put(this.key, this.path, this.source.toString());
+            } catch (IOException e) {
+                // the output is complete without the cache entry, it will just
+                // be emitted again next time
+                System.err.println("Warning: Failed to cache " + this.path + ": " + e.getMessage());
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.emitter.output;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * An output which streams all source files into a single jar or zip file.
+ *
+ * <p>Source files are compressed and written by a background thread so that
+ * emitting threads only hand over the text of each file. Files announced
+ * together through {@link #begin(Collection)} are written sorted by their
+ * path regardless of the order in which they are emitted. Other files follow
+ * the files already announced in the order in which they are completed.
+ * Entries are given a fixed timestamp so the same input produces an identical
+ * jar.</p>
+ */
+public class JarSourceOutput implements SourceOutput {
+
+    private static final long ENTRY_TIME = LocalDateTime.of(1980, 2, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    private final ZipOutputStream zip;
+    private final Thread writer;
+
+    // paths in the order that they are to be written, and the files which
+    // have been completed but not yet written
+    private final Deque<String> order = new ArrayDeque<>();
+    private final Set<String> announced = new HashSet<>();
+    private final Map<String, String> completed = new HashMap<>();
+    // files whose emitting failed, these are left out of the jar
+    private final Set<String> discarded = new HashSet<>();
+    private boolean closed;
+    private IOException error;
+
+    public JarSourceOutput(Path jar) throws IOException {
+        this.zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(jar)));
+        this.writer = new Thread(this::writeEntries, "despector-jar-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void begin(Collection<String> paths) {
+        List<String> sorted = new ArrayList<>(paths);
+        Collections.sort(sorted);
+        synchronized (this) {
+            for (String path : sorted) {
+                if (this.announced.add(path)) {
+                    this.order.add(path);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Writer open(String path) throws IOException {
+        synchronized (this) {
+            checkState();
+        }
+        return new EntryWriter(path);
+    }
+
+    @Override
+    public synchronized void discard(String path) {
+        this.discarded.add(path);
+        notifyAll();
+    }
+
+    private void complete(String path, String source) throws IOException {
+        synchronized (this) {
+            checkState();
+            if (this.discarded.contains(path)) {
+                return;
+            }
+            if (!this.announced.remove(path)) {
+                this.order.add(path);
+            }
+            this.completed.put(path, source);
+            notifyAll();
+        }
+    }
+
+    private void checkState() throws IOException {
+        if (this.error != null) {
+            throw new IOException("Failed to write source jar", this.error);
+        }
+        if (this.closed) {
+            throw new IOException("Source jar is closed");
+        }
+    }
+
+    private void writeEntries() {
+        try {
+            while (true) {
+                String path;
+                String source;
+                synchronized (this) {
+                    while (!this.closed && (this.order.isEmpty() || !isReady(this.order.peek()))) {
+                        wait();
+                    }
+                    if (this.order.isEmpty()) {
+                        return;
+                    }
+                    path = this.order.poll();
+                    if (this.discarded.contains(path)) {
+                        continue;
+                    }
+                    source = this.completed.remove(path);
+                    if (source == null) {
+                        // closed before this announced file was emitted
+                        continue;
+                    }
+                }
+                ZipEntry entry = new ZipEntry(path);
+                entry.setTime(ENTRY_TIME);
+                this.zip.putNextEntry(entry);
+                this.zip.write(source.getBytes(StandardCharsets.UTF_8));
+                this.zip.closeEntry();
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                this.error = e;
+            }
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                this.error = new InterruptedIOException();
+            }
+        }
+    }
+
+    private boolean isReady(String path) {
+        return this.completed.containsKey(path) || this.discarded.contains(path);
+    }
+
+    /**
+     * Writes all completed files and finishes the jar.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            notifyAll();
+        }
+        try {
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        try {
+            this.zip.close();
+        } catch (IOException e) {
+            if (this.error == null) {
+                this.error = e;
+            }
+        }
+        if (this.error != null) {
+            throw new IOException("Failed to write source jar", this.error);
+        }
+    }
+
+    /**
+     * Collects the text of a single source file and hands it to the writer
+     * thread once closed.
+     */
+    private class EntryWriter extends StringWriter {
+
+        private final String path;
+        private boolean done;
+
+        EntryWriter(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!this.done) {
+                this.done = true;
+                complete(this.path, toString());
+            }
+        }
+
+    }
+
+}
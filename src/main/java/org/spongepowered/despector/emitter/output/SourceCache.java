@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.emitter.output;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.despector.util.metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * A content addressed cache of emitted sources on disk.
+ *
+ * <p>Entries are keyed by the sha-256 of the class files that a source file
+ * was emitted from together with a version string, which should change
+ * whenever the decompiler or its configuration changes in a way that may
+ * affect the output.</p>
+ */
+public class SourceCache {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path root;
+    private final byte[] version;
+
+    /**
+     * Creates a new cache in the given directory for the given decompiler
+     * version.
+     */
+    public SourceCache(Path root, String version) throws IOException {
+        this.root = checkNotNull(root, "root");
+        this.version = (FORMAT_VERSION + ":" + checkNotNull(version, "version")).getBytes(StandardCharsets.UTF_8);
+        Files.createDirectories(root);
+    }
+
+    /**
+     * Gets the key of the source emitted from the given class files, which are
+     * a top level type and all of its inner classes in a fixed order.
+     */
+    public String getKey(List<byte[]> class_files) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(this.version);
+        for (byte[] data : class_files) {
+            // lengths are included so that the split between files is part of
+            // the key
+            int length = data.length;
+            digest.update(new byte[] {(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+            digest.update(data);
+        }
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    private Path getFile(String key) {
+        return this.root.resolve(key.substring(0, 2)).resolve(key.substring(2));
+    }
+
+    /**
+     * Gets the cached source with the given key, or null if there is no such
+     * entry. Hits and misses are counted in {@link Metrics}.
+     */
+    @Nullable
+    public Entry get(String key) throws IOException {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(getFile(key));
+        } catch (NoSuchFileException e) {
+            Metrics.CACHE_MISSES.increment();
+            return null;
+        }
+        String contents = new String(data, StandardCharsets.UTF_8);
+        int split = contents.indexOf('\n');
+        if (split == -1) {
+            // a damaged entry is treated as missing and replaced
+            Metrics.CACHE_MISSES.increment();
+            return null;
+        }
+        Metrics.CACHE_HITS.increment();
+        return new Entry(contents.substring(0, split), contents.substring(split + 1));
+    }
+
+    /**
+     * Stores the given source file under the given key.
+     */
+    public void put(String key, String path, String source) throws IOException {
+        Path file = getFile(key);
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, (path + "\n" + source).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * A cached source file.
+     */
+    public static class Entry {
+
+        private final String path;
+        private final String source;
+
+        Entry(String path, String source) {
+            this.path = path;
+            this.source = source;
+        }
+
+        /**
+         * Gets the path of the source file within the output.
+         */
+        public String getPath() {
+            return this.path;
+        }
+
+        /**
+         * Gets the text of the source file.
+         */
+        public String getSource() {
+            return this.source;
+        }
+
+    }
+
+}
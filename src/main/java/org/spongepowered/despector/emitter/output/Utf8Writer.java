@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.emitter.output;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A writer which collects characters in a fixed buffer and encodes them to
+ * utf-8 in bulk, writing the encoded bytes to a channel in large chunks.
+ *
+ * <p>Character sequences such as a {@link StringBuilder} are copied straight
+ * into the buffer without first being converted to a string. This writer is
+ * not thread safe.</p>
+ */
+public class Utf8Writer extends Writer {
+
+    private static final int DEFAULT_BUFFER_SIZE = 16384;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final char[] chars;
+    private final CharBuffer char_buffer;
+    private final ByteBuffer bytes;
+    private int count;
+    private boolean closed;
+
+    public Utf8Writer(OutputStream output) {
+        this(Channels.newChannel(output));
+    }
+
+    public Utf8Writer(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new writer to the given channel which buffers up to the given
+     * number of characters.
+     */
+    public Utf8Writer(WritableByteChannel channel, int buffer_size) {
+        this.channel = checkNotNull(channel, "channel");
+        this.chars = new char[Math.max(buffer_size, 2)];
+        this.char_buffer = CharBuffer.wrap(this.chars);
+        // 3 bytes is the most that a single char encodes to
+        this.bytes = ByteBuffer.allocate(this.chars.length * 3);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (this.count == this.chars.length) {
+            encode(false);
+        }
+        this.chars[this.count++] = (char) c;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int pos = off;
+        int end = off + len;
+        while (pos < end) {
+            if (this.count == this.chars.length) {
+                encode(false);
+            }
+            int n = Math.min(end - pos, this.chars.length - this.count);
+            System.arraycopy(cbuf, pos, this.chars, this.count, n);
+            this.count += n;
+            pos += n;
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        int pos = off;
+        int end = off + len;
+        while (pos < end) {
+            if (this.count == this.chars.length) {
+                encode(false);
+            }
+            int n = Math.min(end - pos, this.chars.length - this.count);
+            str.getChars(pos, pos + n, this.chars, this.count);
+            this.count += n;
+            pos += n;
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        if (csq == null) {
+            return append("null");
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        if (csq == null) {
+            return append("null", start, end);
+        }
+        if (csq instanceof String) {
+            write((String) csq, start, end - start);
+        } else if (csq instanceof StringBuilder) {
+            StringBuilder builder = (StringBuilder) csq;
+            int pos = start;
+            while (pos < end) {
+                if (this.count == this.chars.length) {
+                    encode(false);
+                }
+                int n = Math.min(end - pos, this.chars.length - this.count);
+                builder.getChars(pos, pos + n, this.chars, this.count);
+                this.count += n;
+                pos += n;
+            }
+        } else {
+            for (int i = start; i < end; i++) {
+                write(csq.charAt(i));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Encodes the buffered characters and writes them out. A trailing high
+     * surrogate is kept in the buffer until the rest of its pair arrives,
+     * unless this is the end of the input.
+     */
+    private void encode(boolean end_of_input) throws IOException {
+        this.char_buffer.limit(this.count).position(0);
+        CoderResult result = this.encoder.encode(this.char_buffer, this.bytes, end_of_input);
+        if (result.isOverflow()) {
+            // cannot happen as the byte buffer fits the entire char buffer
+            throw new IllegalStateException("Utf-8 buffer overflow");
+        }
+        if (end_of_input) {
+            this.encoder.flush(this.bytes);
+        }
+        int remaining = this.char_buffer.remaining();
+        if (remaining > 0) {
+            System.arraycopy(this.chars, this.char_buffer.position(), this.chars, 0, remaining);
+        }
+        this.count = remaining;
+        this.bytes.flip();
+        while (this.bytes.hasRemaining()) {
+            this.channel.write(this.bytes);
+        }
+        this.bytes.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (this.count > 0) {
+            encode(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            encode(true);
+        } finally {
+            this.channel.close();
+        }
+    }
+
+}
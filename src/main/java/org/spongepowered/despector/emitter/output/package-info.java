@@ -22,13 +22,5 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
  */
-package org.spongepowered.despector.parallel;
-
-public class Timing {
-
-    public static long time_decompiling = 0;
-    public static long time_decompiling_methods = 0;
-    public static long time_loading_classes = 0;
-    public static long time_emitting = 0;
-
-}
+@org.spongepowered.despector.util.NonnullByDefault
+package org.spongepowered.despector.emitter.output;
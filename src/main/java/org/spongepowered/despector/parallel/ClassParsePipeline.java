@@ -0,0 +1,227 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.parallel;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.Decompiler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A pipeline for parsing class files in parallel.
+ * 
+ * <p>A single reader thread submits each class file which is then read and
+ * parsed by a pool of parser threads. As the data of a class file is only read
+ * once a parser takes it, reading and inflating archive entries is spread
+ * across the parsers as well. The queue between the reader and the parsers is
+ * bounded so that a fast reader cannot buffer an entire archive in memory
+ * ahead of the parsers.</p>
+ * 
+ * <p>The decompiler must be safe to call from multiple threads at once. The
+ * method bodies of the parsed types are not decompiled here but are left in
+ * the decompiler's scheduler for the following method decompile phase.</p>
+ */
+public class ClassParsePipeline {
+
+    private static final int QUEUE_CAPACITY_PER_PARSER = 16;
+    private static final ClassData END = () -> new byte[0];
+
+    private final SourceSet src;
+    private final Decompiler decomp;
+    private final BlockingQueue<ClassData> queue;
+    private final Thread[] parsers;
+
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    private final List<TypeEntry> parsed = new ArrayList<>();
+    private int outstanding;
+
+    /**
+     * Creates and starts a new pipeline with the given number of parser
+     * threads.
+     */
+    public ClassParsePipeline(SourceSet src, Decompiler decomp, int parsers) {
+        this.src = checkNotNull(src, "src");
+        this.decomp = checkNotNull(decomp, "decomp");
+        if (parsers <= 0) {
+            parsers = 1;
+        }
+        this.queue = new ArrayBlockingQueue<>(parsers * QUEUE_CAPACITY_PER_PARSER);
+        this.parsers = new Thread[parsers];
+        for (int i = 0; i < parsers; i++) {
+            Thread parser = new Thread(this::parse, "despector-parser-" + i);
+            parser.setDaemon(true);
+            this.parsers[i] = parser;
+            parser.start();
+        }
+    }
+
+    /**
+     * Submits the given class file data to be parsed. Blocks if the parsers
+     * have fallen too far behind.
+     */
+    public void submit(byte[] data) {
+        checkNotNull(data, "data");
+        submit(() -> data);
+    }
+
+    /**
+     * Submits the given class file to be read and parsed by one of the parser
+     * threads. Blocks if the parsers have fallen too far behind.
+     */
+    public void submit(ClassData data) {
+        checkNotNull(data, "data");
+        synchronized (this) {
+            this.outstanding++;
+        }
+        put(data);
+    }
+
+    /**
+     * Waits for all class files submitted so far to be parsed. The parser
+     * threads are left running so that more class files may be submitted
+     * afterwards.
+     */
+    public void await() {
+        synchronized (this) {
+            while (this.outstanding > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for parsers", e);
+                }
+            }
+        }
+        rethrowError();
+    }
+
+    /**
+     * Waits for all class files submitted so far to be parsed and returns the
+     * types parsed since the last call to this method. The parser threads are
+     * left running so that more class files may be submitted afterwards.
+     */
+    public List<TypeEntry> drain() {
+        await();
+        synchronized (this) {
+            List<TypeEntry> result = new ArrayList<>(this.parsed);
+            this.parsed.clear();
+            return result;
+        }
+    }
+
+    /**
+     * Waits for all submitted class files to be parsed and stops the parser
+     * threads. If any class file failed to parse then the first such error is
+     * rethrown.
+     */
+    public void finish() {
+        for (int i = 0; i < this.parsers.length; i++) {
+            put(END);
+        }
+        for (Thread parser : this.parsers) {
+            try {
+                parser.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for parsers", e);
+            }
+        }
+        synchronized (this) {
+            this.parsed.clear();
+        }
+        rethrowError();
+    }
+
+    private void rethrowError() {
+        Throwable ex = this.error.get();
+        if (ex instanceof RuntimeException) {
+            throw (RuntimeException) ex;
+        } else if (ex instanceof Error) {
+            throw (Error) ex;
+        }
+    }
+
+    private void put(ClassData data) {
+        try {
+            this.queue.put(data);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for parsers", e);
+        }
+    }
+
+    private void parse() {
+        while (true) {
+            ClassData next;
+            try {
+                next = this.queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (next == END) {
+                return;
+            }
+            TypeEntry type = null;
+            try {
+                type = this.decomp.decompile(next.read(), this.src);
+            } catch (IOException e) {
+                e.printStackTrace();
+            } catch (RuntimeException | Error e) {
+                // keep consuming so that the reader is never left blocked on a
+                // full queue, the error is rethrown once the pipeline finishes
+                this.error.compareAndSet(null, e);
+            }
+            synchronized (this) {
+                if (type != null) {
+                    this.parsed.add(type);
+                }
+                this.outstanding--;
+                if (this.outstanding == 0) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * A source of the data of a class file which is read by the parser thread
+     * which parses it.
+     */
+    public static interface ClassData {
+
+        byte[] read() throws IOException;
+
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.parallel;
+
+import org.spongepowered.despector.decompiler.BaseDecompiler.UnfinishedMethod;
+
+/**
+ * A simple cost model for estimating the work required to decompile a method
+ * body.
+ * 
+ * <p>The estimate is based on the length of the bytecode, the number of branch
+ * targets and the size of the exception table. Branches and exception handlers
+ * are weighted more heavily than straight line code as they are what drives the
+ * size of the control flow graph that must be processed.</p>
+ */
+public final class CostModel {
+
+    /**
+     * The cost assumed for any task which does not provide its own estimate.
+     */
+    public static final long DEFAULT_COST = 256;
+
+    private static final int BRANCH_COST = 8;
+    private static final int HANDLER_COST = 32;
+    private static final int[] OPCODE_LENGTHS = new int[256];
+
+    static {
+        for (int i = 0; i <= 201; i++) {
+            OPCODE_LENGTHS[i] = 1;
+        }
+        OPCODE_LENGTHS[16] = 2; // BIPUSH
+        OPCODE_LENGTHS[17] = 3; // SIPUSH
+        OPCODE_LENGTHS[18] = 2; // LDC
+        OPCODE_LENGTHS[19] = 3; // LDC_W
+        OPCODE_LENGTHS[20] = 3; // LDC2_W
+        for (int i = 21; i <= 25; i++) {
+            OPCODE_LENGTHS[i] = 2; // xLOAD
+        }
+        for (int i = 54; i <= 58; i++) {
+            OPCODE_LENGTHS[i] = 2; // xSTORE
+        }
+        OPCODE_LENGTHS[132] = 3; // IINC
+        OPCODE_LENGTHS[169] = 2; // RET
+        for (int i = 178; i <= 184; i++) {
+            OPCODE_LENGTHS[i] = 3; // field access and invokes
+        }
+        OPCODE_LENGTHS[185] = 5; // INVOKEINTERFACE
+        OPCODE_LENGTHS[186] = 5; // INVOKEDYNAMIC
+        OPCODE_LENGTHS[187] = 3; // NEW
+        OPCODE_LENGTHS[188] = 2; // NEWARRAY
+        OPCODE_LENGTHS[189] = 3; // ANEWARRAY
+        OPCODE_LENGTHS[192] = 3; // CHECKCAST
+        OPCODE_LENGTHS[193] = 3; // INSTANCEOF
+        OPCODE_LENGTHS[197] = 4; // MULTIANEWARRAY
+    }
+
+    /**
+     * Estimates the cost of decompiling the given method.
+     */
+    public static long estimate(UnfinishedMethod method) {
+        if (method.code == null) {
+            return 0;
+        }
+        long cost = method.code_length;
+        cost += BRANCH_COST * countBranches(method.code, method.code_offset, method.code_length);
+        if (method.catch_regions != null) {
+            cost += HANDLER_COST * method.catch_regions.size();
+        }
+        return cost;
+    }
+
+    /**
+     * Counts the number of branch targets in the given bytecode. Switches
+     * count one branch for each of their targets.
+     */
+    public static int countBranches(byte[] code) {
+        return countBranches(code, 0, code.length);
+    }
+
+    /**
+     * Counts the number of branch targets in the bytecode in the given range
+     * of the array.
+     */
+    public static int countBranches(byte[] code, int offset, int length) {
+        int branches = 0;
+        for (int i = 0; i < length;) {
+            int opcode = code[offset + i] & 0xFF;
+            if ((opcode >= 153 && opcode <= 168) || opcode == 198 || opcode == 199) {
+                // IFEQ .. JSR, IFNULL, IFNONNULL
+                branches++;
+                i += 3;
+            } else if (opcode == 200 || opcode == 201) {
+                // GOTO_W, JSR_W
+                branches++;
+                i += 5;
+            } else if (opcode == 170) {
+                // TABLESWITCH
+                int pad = (i + 4) & ~3;
+                if (pad + 12 > length) {
+                    break;
+                }
+                int low = readInt(code, offset + pad + 4);
+                int high = readInt(code, offset + pad + 8);
+                // computed as longs so that a malformed range cannot overflow
+                // into a negative index
+                long count = (long) high - low + 1;
+                long end = pad + 12 + count * 4;
+                if (count < 0 || end > length) {
+                    break;
+                }
+                branches += (int) count + 1;
+                i = (int) end;
+            } else if (opcode == 171) {
+                // LOOKUPSWITCH
+                int pad = (i + 4) & ~3;
+                if (pad + 8 > length) {
+                    break;
+                }
+                int count = readInt(code, offset + pad + 4);
+                long end = pad + 8 + (long) count * 8;
+                if (count < 0 || end > length) {
+                    break;
+                }
+                branches += count + 1;
+                i = (int) end;
+            } else if (opcode == 196) {
+                // WIDE
+                if (i + 1 < length && (code[offset + i + 1] & 0xFF) == 132) {
+                    i += 6;
+                } else {
+                    i += 4;
+                }
+            } else {
+                int opcode_length = OPCODE_LENGTHS[opcode];
+                if (opcode_length == 0) {
+                    // unknown opcode, the translator will report the error
+                    break;
+                }
+                i += opcode_length;
+            }
+        }
+        return branches;
+    }
+
+    private static int readInt(byte[] code, int i) {
+        return ((code[i] & 0xFF) << 24) | ((code[i + 1] & 0xFF) << 16) | ((code[i + 2] & 0xFF) << 8) | (code[i + 3] & 0xFF);
+    }
+
+    private CostModel() {
+    }
+
+}
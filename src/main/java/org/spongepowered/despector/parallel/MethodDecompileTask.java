@@ -42,10 +42,12 @@ import org.spongepowered.despector.decompiler.BaseDecompiler;
 import org.spongepowered.despector.decompiler.Decompilers;
 import org.spongepowered.despector.decompiler.BaseDecompiler.BootstrapMethod;
 import org.spongepowered.despector.decompiler.BaseDecompiler.UnfinishedMethod;
+import org.spongepowered.despector.decompiler.error.BudgetExceededException;
 import org.spongepowered.despector.decompiler.ir.Insn;
 import org.spongepowered.despector.decompiler.loader.BytecodeTranslator;
 import org.spongepowered.despector.decompiler.loader.ClassConstantPool;
 import org.spongepowered.despector.decompiler.method.MethodDecompiler;
+import org.spongepowered.despector.util.metrics.Metrics;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -54,7 +56,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-public class MethodDecompileTask implements Runnable {
+public class MethodDecompileTask implements DivisibleTask, WeightedTask {
 
     private final TypeEntry entry;
     private final ClassConstantPool pool;
@@ -81,72 +83,161 @@ public class MethodDecompileTask implements Runnable {
             if (unfinished.code == null) {
                 continue;
             }
-            MethodEntry mth = unfinished.mth;
-            try {
-                mth.setIR(this.bytecode.createIR(unfinished.code, mth.getLocals(), unfinished.catch_regions, this.pool, this.bootstrap_methods));
-
-                if (unfinished.parameter_annotations != null) {
-                    for (Map.Entry<Integer, List<Annotation>> e : unfinished.parameter_annotations.entrySet()) {
-                        Local loc = mth.getLocals().getLocal(e.getKey());
-                        loc.getInstance(0).getAnnotations().addAll(e.getValue());
-                    }
-                }
+            decompileMethod(unfinished);
+        }
+    }
 
-                if (BaseDecompiler.DUMP_IR_ON_LOAD) {
-                    System.out.println("Instructions of " + mth.getName() + " " + mth.getDescription());
-                    System.out.println(mth.getIR());
-                }
-                MethodDecompiler mth_decomp = Decompilers.JAVA_METHOD;
-                if (this.entry.getLanguage() == Language.KOTLIN) {
-                    mth_decomp = Decompilers.KOTLIN_METHOD;
+    /**
+     * Defers decompiling the bodies of this task's methods until they are
+     * first requested from their {@link MethodEntry}. The static initializer
+     * of an enum is still decompiled immediately as the names of the enum
+     * constants are taken from it.
+     */
+    public void defer() {
+        for (UnfinishedMethod unfinished : this.unfinished_methods) {
+            if (unfinished.code == null) {
+                continue;
+            }
+            if (this.entry instanceof EnumEntry && unfinished.mth.getName().equals("<clinit>")) {
+                decompileMethod(unfinished);
+            } else {
+                unfinished.mth.setPendingBody(new MethodUnit(unfinished));
+            }
+        }
+    }
+
+    @Override
+    public List<Runnable> split() {
+        List<Runnable> units = new ArrayList<>(this.unfinished_methods.size());
+        for (UnfinishedMethod unfinished : this.unfinished_methods) {
+            if (unfinished.code == null) {
+                continue;
+            }
+            units.add(new MethodUnit(unfinished));
+        }
+        return units;
+    }
+
+    @Override
+    public long getCost() {
+        long cost = 0;
+        for (UnfinishedMethod unfinished : this.unfinished_methods) {
+            cost += CostModel.estimate(unfinished);
+        }
+        return cost;
+    }
+
+    /**
+     * Decompiles the body of a single method of this task's type. Methods of
+     * the same type are independent of each other and may be decompiled
+     * concurrently.
+     */
+    public void decompileMethod(UnfinishedMethod unfinished) {
+        MethodEntry mth = unfinished.mth;
+        long start = System.nanoTime();
+        long allocated = LibraryConfiguration.print_times ? Metrics.getAllocatedBytes() : -1;
+        try {
+            mth.setIR(this.bytecode.createIR(unfinished.code, unfinished.code_offset, unfinished.code_length, mth.getLocals(), unfinished.catch_regions,
+                    this.pool, this.bootstrap_methods, unfinished.stack_map));
+            Metrics.IR.recordSince(start);
+
+            if (unfinished.parameter_annotations != null) {
+                for (Map.Entry<Integer, List<Annotation>> e : unfinished.parameter_annotations.entrySet()) {
+                    Local loc = mth.getLocals().getLocal(e.getKey());
+                    loc.getInstance(0).getAnnotations().addAll(e.getValue());
                 }
-                StatementBlock block = mth_decomp.decompile(mth);
-                mth.setInstructions(block);
-
-                if (this.entry instanceof EnumEntry && mth.getName().equals("<clinit>")) {
-                    EnumEntry e = (EnumEntry) this.entry;
-                    Set<String> names = new HashSet<>(e.getEnumConstants());
-                    e.getEnumConstants().clear();
-                    for (Statement stmt : block) {
-                        if (names.isEmpty() || !(stmt instanceof StaticFieldAssignment)) {
-                            break;
-                        }
-                        StaticFieldAssignment assign = (StaticFieldAssignment) stmt;
-                        if (!names.remove(assign.getFieldName())) {
-                            break;
-                        }
-                        New val = (New) assign.getValue();
-                        StringConstant cst = (StringConstant) val.getParameters()[0];
-                        e.addEnumConstant(cst.getConstant());
+            }
+
+            if (BaseDecompiler.DUMP_IR_ON_LOAD) {
+                System.out.println("Instructions of " + mth.getName() + " " + mth.getDescription());
+                System.out.println(mth.getIR());
+            }
+            MethodDecompiler mth_decomp = Decompilers.JAVA_METHOD;
+            if (this.entry.getLanguage() == Language.KOTLIN) {
+                mth_decomp = Decompilers.KOTLIN_METHOD;
+            }
+            StatementBlock block = mth_decomp.decompile(mth);
+            mth.setInstructions(block);
+
+            if (this.entry instanceof EnumEntry && mth.getName().equals("<clinit>")) {
+                EnumEntry e = (EnumEntry) this.entry;
+                Set<String> names = new HashSet<>(e.getEnumConstants());
+                e.getEnumConstants().clear();
+                for (Statement stmt : block) {
+                    if (names.isEmpty() || !(stmt instanceof StaticFieldAssignment)) {
+                        break;
                     }
-                    if (!names.isEmpty()) {
-                        System.err.println("Warning: Failed to find names for all enum constants in " + this.entry.getName());
+                    StaticFieldAssignment assign = (StaticFieldAssignment) stmt;
+                    if (!names.remove(assign.getFieldName())) {
+                        break;
                     }
+                    New val = (New) assign.getValue();
+                    StringConstant cst = (StringConstant) val.getParameters()[0];
+                    e.addEnumConstant(cst.getConstant());
                 }
-
-            } catch (Exception ex) {
-                if (!LibraryConfiguration.quiet) {
-                    System.err.println("Error decompiling method body for " + this.entry.getName() + " " + mth.toString());
-                    ex.printStackTrace();
+                if (!names.isEmpty()) {
+                    System.err.println("Warning: Failed to find names for all enum constants in " + this.entry.getName());
                 }
-                StatementBlock insns = new StatementBlock(StatementBlock.Type.METHOD);
-                if (ConfigManager.getConfig().print_opcodes_on_error) {
-                    List<String> text = new ArrayList<>();
-                    text.add("Error decompiling block");
-                    if (mth.getIR() != null) {
-                        for (Insn next : mth.getIR()) {
-                            text.add(next.toString());
-                        }
-                    } else {
-                        mth.getLocals().bakeInstances(Collections.emptyList());
-                    }
-                    insns.append(new Comment(text));
-                } else {
-                    insns.append(new Comment("Error decompiling block"));
+            }
+
+        } catch (BudgetExceededException ex) {
+            Metrics.METHODS_OVER_BUDGET.increment();
+            if (!LibraryConfiguration.quiet) {
+                System.err.println("Gave up decompiling method body for " + this.entry.getName() + " " + mth.toString() + ": " + ex.getMessage());
+            }
+            setErrorBody(mth);
+        } catch (Exception ex) {
+            if (!LibraryConfiguration.quiet) {
+                System.err.println("Error decompiling method body for " + this.entry.getName() + " " + mth.toString());
+                ex.printStackTrace();
+            }
+            Metrics.METHOD_ERRORS.increment();
+            setErrorBody(mth);
+        }
+        Metrics.METHODS.increment();
+        Metrics.METHOD_DECOMPILE.recordSince(start);
+        if (allocated != -1) {
+            Metrics.METHOD_ALLOCATED.record(Metrics.getAllocatedBytes() - allocated);
+        }
+    }
+
+    private static void setErrorBody(MethodEntry mth) {
+        StatementBlock insns = new StatementBlock(StatementBlock.Type.METHOD);
+        if (ConfigManager.getConfig().print_opcodes_on_error) {
+            List<String> text = new ArrayList<>();
+            text.add("Error decompiling block");
+            if (mth.getIR() != null) {
+                for (Insn next : mth.getIR()) {
+                    text.add(next.toString());
                 }
-                mth.setInstructions(insns);
+            } else {
+                mth.getLocals().bakeInstances(Collections.emptyList());
             }
+            insns.append(new Comment(text));
+        } else {
+            insns.append(new Comment("Error decompiling block"));
         }
+        mth.setInstructions(insns);
+    }
+
+    private class MethodUnit implements WeightedTask {
+
+        private final UnfinishedMethod method;
+
+        MethodUnit(UnfinishedMethod method) {
+            this.method = method;
+        }
+
+        @Override
+        public void run() {
+            decompileMethod(this.method);
+        }
+
+        @Override
+        public long getCost() {
+            return CostModel.estimate(this.method);
+        }
+
     }
 
 }
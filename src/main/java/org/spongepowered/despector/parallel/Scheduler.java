@@ -24,31 +24,84 @@
  */
 package org.spongepowered.despector.parallel;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nullable;
 
-public class Scheduler<T extends Runnable> {
+/**
+ * A work-stealing scheduler for running tasks in parallel.
+ * 
+ * <p>Tasks which are {@link DivisibleTask}s are split into their individual
+ * units of work before being scheduled so that idle workers may steal pending
+ * units from busy workers rather than waiting on a single large task. Units
+ * are dispatched in order of decreasing estimated cost, see
+ * {@link WeightedTask}.</p>
+ * 
+ * <p>The worker threads are created on first use and are kept alive between
+ * calls to {@link #execute()} until the scheduler is {@link #close() closed}.
+ * Alternatively an external {@link Executor} may be provided in which case its
+ * lifecycle remains the responsibility of the caller.</p>
+ */
+public class Scheduler<T extends Runnable> implements AutoCloseable {
 
-    private static final int PARALLEL_THRESHOLD = 100;
+    /**
+     * The total estimated cost below which tasks are run serially on the
+     * calling thread, as the overhead of dispatching them would outweigh any
+     * benefit.
+     */
+    private static final long PARALLEL_THRESHOLD = 100 * CostModel.DEFAULT_COST;
 
-    private final Worker<T>[] workers;
+    private final int workers;
+    @Nullable private final Executor executor;
     private final List<T> tasks = new ArrayList<>();
 
-    private ReentrantLock lock = new ReentrantLock();
-    private Condition finished = this.lock.newCondition();
-    private int finished_count;
+    @Nullable private ForkJoinPool pool;
+
+    // keyed by the thread itself as the threads of an external executor need
+    // not have distinct names
+    private final Map<Thread, WorkerStats> worker_stats = new ConcurrentHashMap<>();
+    private long total_execute_time;
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Creates a new scheduler which owns a pool of the given number of worker
+     * threads.
+     */
     public Scheduler(int workers) {
         if (workers <= 0) {
             workers = 1;
         }
-        this.workers = new Worker[workers];
+        this.workers = workers;
+        this.executor = null;
     }
 
-    public void add(T task) {
+    /**
+     * Creates a new scheduler which runs its tasks on the given executor. The
+     * executor is not shutdown when this scheduler is closed.
+     */
+    public Scheduler(Executor executor) {
+        this.workers = 0;
+        this.executor = checkNotNull(executor, "executor");
+    }
+
+    /**
+     * Adds a task to be run on the next call to {@link #execute()}. Tasks may
+     * be added from multiple threads concurrently.
+     */
+    public synchronized void add(T task) {
         this.tasks.add(task);
     }
 
@@ -56,35 +109,112 @@ public class Scheduler<T extends Runnable> {
         return this.tasks;
     }
 
+    /**
+     * Runs all pending tasks and blocks until they have completed.
+     */
     public void execute() {
-        if (this.tasks.size() < PARALLEL_THRESHOLD) {
+        List<Unit> units = new ArrayList<>();
+        long total_cost = 0;
+        for (T task : this.tasks) {
+            if (task instanceof DivisibleTask) {
+                for (Runnable unit : ((DivisibleTask) task).split()) {
+                    Unit next = new Unit(unit);
+                    units.add(next);
+                    total_cost += next.cost;
+                }
+            } else {
+                Unit next = new Unit(task);
+                units.add(next);
+                total_cost += next.cost;
+            }
+        }
+        if (total_cost < PARALLEL_THRESHOLD) {
             for (T task : this.tasks) {
                 task.run();
             }
             return;
         }
-        for (int i = 0; i < this.workers.length; i++) {
-            this.workers[i] = new Worker<>();
+        // Dispatch the most expensive units first so that a single large unit
+        // is not left running alone at the end of the batch.
+        units.sort((a, b) -> Long.compare(b.cost, a.cost));
+        long start = System.nanoTime();
+        try {
+            if (this.executor == null) {
+                invoke(getPool(), units);
+            } else if (this.executor instanceof ForkJoinPool) {
+                invoke((ForkJoinPool) this.executor, units);
+            } else {
+                submit(this.executor, units);
+            }
+        } finally {
+            this.total_execute_time += System.nanoTime() - start;
         }
-        int i = 0;
-        for (T task : this.tasks) {
-            this.workers[i % this.workers.length].add(task);
-            i++;
+    }
+
+    private ForkJoinPool getPool() {
+        if (this.pool == null) {
+            // the forked drain tasks are never joined by the worker that
+            // forked them so async mode suits them better
+            this.pool = new ForkJoinPool(this.workers, Scheduler::newWorkerThread, null, true);
         }
-        this.finished_count = 0;
-        for (Worker<T> worker : this.workers) {
-            worker.start();
+        return this.pool;
+    }
+
+    private static void invoke(ForkJoinPool pool, List<? extends Runnable> units) {
+        // Rather than forking each unit, which would leave the order units are
+        // taken in up to the pool's work-stealing, every worker drains the
+        // sorted units through a shared cursor so that units are started in
+        // order of decreasing cost.
+        AtomicInteger next = new AtomicInteger();
+        int drainers = Math.min(pool.getParallelism(), units.size());
+        pool.invoke(new RecursiveAction() {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                List<ForkJoinTask<?>> actions = new ArrayList<>(drainers);
+                for (int i = 0; i < drainers; i++) {
+                    actions.add(ForkJoinTask.adapt(() -> drain(units, next)));
+                }
+                invokeAll(actions);
+            }
+        });
+    }
+
+    private static void drain(List<? extends Runnable> units, AtomicInteger next) {
+        for (int i = next.getAndIncrement(); i < units.size(); i = next.getAndIncrement()) {
+            units.get(i).run();
+        }
+    }
+
+    private static void submit(Executor executor, List<? extends Runnable> units) {
+        CountDownLatch latch = new CountDownLatch(units.size());
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        for (Runnable unit : units) {
+            executor.execute(() -> {
+                try {
+                    unit.run();
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                } finally {
+                    latch.countDown();
+                }
+            });
         }
         try {
-            this.lock.lock();
-            this.finished.await();
+            latch.await();
         } catch (InterruptedException e) {
-            e.printStackTrace();
-        } finally {
-            this.lock.unlock();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for tasks to complete", e);
         }
-        for (int j = 0; j < this.workers.length; j++) {
-            this.workers[j] = null;
+        Throwable t = error.get();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new IllegalStateException(t);
         }
     }
 
@@ -92,35 +222,103 @@ public class Scheduler<T extends Runnable> {
         this.tasks.clear();
     }
 
-    void markWorkerDone() {
-        try {
-            this.lock.lock();
-            this.finished_count++;
-            if (this.finished_count == this.workers.length) {
-                this.finished.signalAll();
-            }
-        } finally {
-            this.lock.unlock();
+    /**
+     * Shuts down the worker threads owned by this scheduler. If the scheduler
+     * is used again afterwards a new set of worker threads will be started.
+     */
+    @Override
+    public void close() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+            this.pool = null;
         }
     }
 
-    private class Worker<R> extends Thread {
+    /**
+     * Gets the statistics of each worker which has run tasks in this
+     * scheduler.
+     */
+    public Collection<WorkerStats> getWorkerStats() {
+        return this.worker_stats.values();
+    }
 
-        private final List<T> tasks = new ArrayList<>();
+    /**
+     * Gets the total wall time in nanoseconds spent running tasks in parallel.
+     */
+    public long getTotalExecuteTime() {
+        return this.total_execute_time;
+    }
 
-        Worker() {
-        }
+    WorkerStats getStats(Thread thread) {
+        return this.worker_stats.computeIfAbsent(thread, (t) -> new WorkerStats(t.getName()));
+    }
 
-        public void add(T task) {
-            this.tasks.add(task);
+    private static ForkJoinWorkerThread newWorkerThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("despector-worker-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    private class Unit implements Runnable {
+
+        private final Runnable delegate;
+        final long cost;
+
+        Unit(Runnable delegate) {
+            this.delegate = delegate;
+            this.cost = delegate instanceof WeightedTask ? ((WeightedTask) delegate).getCost() : CostModel.DEFAULT_COST;
         }
 
         @Override
         public void run() {
-            for (T task : this.tasks) {
-                task.run();
+            long start = System.nanoTime();
+            try {
+                this.delegate.run();
+            } finally {
+                getStats(Thread.currentThread()).record(System.nanoTime() - start);
             }
-            Scheduler.this.markWorkerDone();
+        }
+
+    }
+
+    /**
+     * Utilization statistics for a single worker thread.
+     */
+    public static class WorkerStats {
+
+        private final String name;
+        private long tasks_run;
+        private long busy_time;
+
+        WorkerStats(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Gets the name of the worker thread.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Gets the number of units of work this worker has completed.
+         */
+        public long getTasksRun() {
+            return this.tasks_run;
+        }
+
+        /**
+         * Gets the time in nanoseconds that this worker has spent running
+         * units of work.
+         */
+        public long getBusyTime() {
+            return this.busy_time;
+        }
+
+        void record(long time) {
+            this.tasks_run++;
+            this.busy_time += time;
         }
 
     }
@@ -54,6 +54,7 @@ import org.spongepowered.despector.ast.stmt.invoke.InstanceMethodInvoke;
 import org.spongepowered.despector.ast.stmt.invoke.New;
 import org.spongepowered.despector.ast.stmt.invoke.StaticMethodInvoke;
 import org.spongepowered.despector.decompiler.ir.Insn;
+import org.spongepowered.despector.decompiler.ir.InsnBlock;
 import org.spongepowered.despector.decompiler.ir.InvokeInsn;
 import org.spongepowered.despector.decompiler.ir.TypeIntInsn;
 
@@ -72,6 +73,29 @@ public final class AstUtil {
             return 0;
         }
         switch (next.getOpcode()) {
+        case Insn.INVOKE: {
+            InvokeInsn method = (InvokeInsn) next;
+            int count = TypeHelper.paramCount(method.getDescription());
+            // the object ref
+            count++;
+            return count;
+        }
+        case Insn.INVOKESTATIC: {
+            InvokeInsn method = (InvokeInsn) next;
+            int count = TypeHelper.paramCount(method.getDescription());
+            return count;
+        }
+        case Insn.MULTINEWARRAY: {
+            TypeIntInsn array = (TypeIntInsn) next;
+            return array.getValue();
+        }
+        default:
+            return getStackRequirementsSize(next.getOpcode());
+        }
+    }
+
+    private static int getStackRequirementsSize(int opcode) {
+        switch (opcode) {
         case -1:
             return 0;
         case Insn.ARRAY_STORE:
@@ -132,24 +156,8 @@ public final class AstUtil {
         case Insn.RETURN:
         case Insn.INVOKEDYNAMIC:
             return 0;
-        case Insn.INVOKE: {
-            InvokeInsn method = (InvokeInsn) next;
-            int count = TypeHelper.paramCount(method.getDescription());
-            // the object ref
-            count++;
-            return count;
-        }
-        case Insn.INVOKESTATIC: {
-            InvokeInsn method = (InvokeInsn) next;
-            int count = TypeHelper.paramCount(method.getDescription());
-            return count;
-        }
-        case Insn.MULTINEWARRAY: {
-            TypeIntInsn array = (TypeIntInsn) next;
-            return array.getValue();
-        }
         default:
-            System.err.println("Unsupported opcode: " + next.getOpcode());
+            System.err.println("Unsupported opcode: " + opcode);
             throw new IllegalStateException();
         }
     }
@@ -162,6 +170,21 @@ public final class AstUtil {
             return 0;
         }
         switch (next.getOpcode()) {
+        case Insn.INVOKE:
+        case Insn.INVOKESTATIC: {
+            InvokeInsn method = (InvokeInsn) next;
+            if (!TypeHelper.getRet(method.getDescription()).equals("V")) {
+                return 1;
+            }
+            return 0;
+        }
+        default:
+            return getStackResultSize(next.getOpcode());
+        }
+    }
+
+    private static int getStackResultSize(int opcode) {
+        switch (opcode) {
         case -1:
             return 0;
         case Insn.DUP2:
@@ -223,16 +246,8 @@ public final class AstUtil {
         case Insn.PUTFIELD:
         case Insn.ARRAY_STORE:
             return 0;
-        case Insn.INVOKE:
-        case Insn.INVOKESTATIC: {
-            InvokeInsn method = (InvokeInsn) next;
-            if (!TypeHelper.getRet(method.getDescription()).equals("V")) {
-                return 1;
-            }
-            return 0;
-        }
         default:
-            System.err.println("Unsupported opcode: " + next.getOpcode());
+            System.err.println("Unsupported opcode: " + opcode);
             throw new IllegalStateException();
         }
     }
@@ -244,6 +259,39 @@ public final class AstUtil {
         return getStackResultSize(next) - getStackRequirementsSize(next);
     }
 
+    /**
+     * Gets the change in stack size from the instruction at the given index of
+     * the given block.
+     */
+    public static int getStackDelta(InsnBlock ir, int i) {
+        int opcode = ir.getOpcode(i);
+        switch (opcode) {
+        case Insn.INVOKE:
+        case Insn.INVOKESTATIC: {
+            String desc = (String) ir.getReference(i, 3);
+            int delta = TypeHelper.getRet(desc).equals("V") ? 0 : 1;
+            delta -= TypeHelper.paramCount(desc);
+            if (opcode == Insn.INVOKE) {
+                // the object ref
+                delta--;
+            }
+            return delta;
+        }
+        case Insn.MULTINEWARRAY:
+            return 1 - ir.getOperand(i);
+        default:
+            return getStackResultSize(opcode) - getStackRequirementsSize(opcode);
+        }
+    }
+
+    private static int getStackDelta(List<Insn> opcodes, int index) {
+        InsnBlock.Range range = InsnBlock.Range.unmodified(opcodes);
+        if (range != null) {
+            return getStackDelta(range.getBlock(), range.getStart() + index);
+        }
+        return getStackDelta(opcodes.get(index));
+    }
+
     /**
      * Gets if the given list of opcodes requires values on the stack from
      * before it starts.
@@ -251,8 +299,7 @@ public final class AstUtil {
     public static boolean hasStartingRequirement(List<Insn> opcodes) {
         int size = 0;
         for (int i = 0; i < opcodes.size(); i++) {
-            Insn next = opcodes.get(i);
-            size += getStackDelta(next);
+            size += getStackDelta(opcodes, i);
             if (size < 0) {
                 return true;
             }
@@ -265,13 +312,12 @@ public final class AstUtil {
      * in the given list of opcodes.
      */
     public static int findStartLastStatement(List<Insn> opcodes) {
-        int required_stack = getStackDelta(opcodes.get(opcodes.size() - 1));
+        int required_stack = getStackDelta(opcodes, opcodes.size() - 1);
         for (int index = opcodes.size() - 2; index >= 0; index--) {
             if (required_stack == 0) {
                 return index + 1;
             }
-            Insn next = opcodes.get(index);
-            required_stack += getStackDelta(next);
+            required_stack += getStackDelta(opcodes, index);
         }
         return 0;
     }
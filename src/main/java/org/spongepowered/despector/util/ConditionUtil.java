@@ -30,6 +30,7 @@ import org.spongepowered.despector.ast.insn.condition.CompareCondition;
 import org.spongepowered.despector.ast.insn.condition.Condition;
 import org.spongepowered.despector.ast.insn.condition.InverseCondition;
 import org.spongepowered.despector.ast.insn.condition.OrCondition;
+import org.spongepowered.despector.decompiler.method.MethodBudget;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -590,6 +591,7 @@ public final class ConditionUtil {
             }
             for (int j = 0; j < encodings.size(); j++) {
                 for (int k = 0; k < encodings.size(); k++) {
+                    MethodBudget.step();
                     int[] n = encodings.get(k);
                     for (Iterator<int[]> it = encodings.iterator(); it.hasNext();) {
                         int[] m = it.next();
@@ -0,0 +1,130 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The bytecode offsets at which each instruction of a method starts, indexed
+ * both ways so that an offset can be mapped to its instruction index in
+ * constant time.
+ */
+public class InsnOffsets {
+
+    /**
+     * Creates a table from the given list of instruction start offsets.
+     */
+    public static InsnOffsets of(List<Integer> starts) {
+        int max = -1;
+        for (int offset : starts) {
+            max = Math.max(max, offset);
+        }
+        InsnOffsets table = new InsnOffsets(max + 1);
+        for (int offset : starts) {
+            table.add(offset);
+        }
+        return table;
+    }
+
+    private int[] starts;
+    private int size;
+    private int[] index;
+    private int limit;
+
+    /**
+     * Creates a new empty table for a method with the given code length.
+     */
+    public InsnOffsets(int code_length) {
+        // most instructions are longer than one byte
+        this.starts = new int[Math.max(code_length / 2, 4)];
+        this.index = new int[code_length + 1];
+        reset(code_length);
+    }
+
+    /**
+     * Clears this table so that it may be reused for a method with the given
+     * code length.
+     */
+    public void reset(int code_length) {
+        this.limit = code_length + 1;
+        if (this.index.length < this.limit) {
+            this.index = new int[Math.max(this.limit, this.index.length * 2)];
+        }
+        Arrays.fill(this.index, 0, this.limit, -1);
+        this.size = 0;
+    }
+
+    /**
+     * Adds the start offset of the next instruction. An offset may be added
+     * multiple times if a single opcode produces several instructions, in
+     * which case it maps to the first of them.
+     */
+    public void add(int offset) {
+        if (this.size == this.starts.length) {
+            this.starts = Arrays.copyOf(this.starts, this.size * 2);
+        }
+        if (this.index[offset] == -1) {
+            this.index[offset] = this.size;
+        }
+        this.starts[this.size++] = offset;
+    }
+
+    /**
+     * Gets the number of instructions in this table.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets if this table contains no instructions.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Gets the start offset of the instruction at the given index.
+     */
+    public int get(int insn) {
+        if (insn < 0 || insn >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + insn + ", Size: " + this.size);
+        }
+        return this.starts[insn];
+    }
+
+    /**
+     * Gets the index of the first instruction starting at the given offset, or
+     * -1 if no instruction starts there.
+     */
+    public int indexOf(int offset) {
+        if (offset < 0 || offset >= this.limit) {
+            return -1;
+        }
+        return this.index[offset];
+    }
+
+}
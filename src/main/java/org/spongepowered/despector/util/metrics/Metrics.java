@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry of the counters and histograms recorded while decompiling.
+ *
+ * <p>Timings are recorded in nanoseconds.</p>
+ */
+public final class Metrics {
+
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * The time spent loading the constant pool of a class.
+     */
+    public static final Histogram CONSTANT_POOL = histogram("phase.constant_pool");
+    /**
+     * The time spent translating the bytecode of a method to IR.
+     */
+    public static final Histogram IR = histogram("phase.ir");
+    /**
+     * The time spent building and cleaning up the control flow graph of a
+     * method.
+     */
+    public static final Histogram GRAPH = histogram("phase.graph");
+    /**
+     * The time spent flattening the control flow graph of a method into
+     * statements.
+     */
+    public static final Histogram FLATTEN = histogram("phase.flatten");
+    /**
+     * The time spent running the statement post processors of a method.
+     */
+    public static final Histogram POST_PROCESS = histogram("phase.post_process");
+    /**
+     * The time spent emitting a top level type.
+     */
+    public static final Histogram EMIT = histogram("phase.emit");
+
+    /**
+     * The time spent reading a class file, excluding its method bodies.
+     */
+    public static final Histogram CLASS_LOAD = histogram("class.load");
+    /**
+     * The time spent decompiling a method body.
+     */
+    public static final Histogram METHOD_DECOMPILE = histogram("method.decompile");
+    /**
+     * The bytes allocated while decompiling a method body, only recorded if
+     * the JVM supports measuring thread allocation.
+     */
+    public static final Histogram METHOD_ALLOCATED = histogram("method.allocated_bytes");
+
+    /**
+     * The time spent by flushes of deferred method decompilation.
+     */
+    public static final Histogram FLUSH = histogram("decompile.flush");
+
+    public static final Counter CLASSES = counter("classes");
+    public static final Counter METHODS = counter("methods");
+    public static final Counter METHOD_ERRORS = counter("methods.errors");
+    public static final Counter METHODS_OVER_BUDGET = counter("methods.over_budget");
+    public static final Counter CACHE_HITS = counter("cache.hits");
+    public static final Counter CACHE_MISSES = counter("cache.misses");
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private static final boolean allocation_supported = checkAllocationSupport();
+
+    /**
+     * Gets the counter with the given name, creating it if it does not yet
+     * exist.
+     */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, (n) -> new Counter());
+    }
+
+    /**
+     * Gets the histogram with the given name, creating it if it does not yet
+     * exist.
+     */
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, (n) -> new Histogram());
+    }
+
+    /**
+     * Gets a snapshot of all registered counters by name.
+     */
+    public static Map<String, Counter> getCounters() {
+        return new TreeMap<>(counters);
+    }
+
+    /**
+     * Gets a snapshot of all registered histograms by name.
+     */
+    public static Map<String, Histogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    /**
+     * Clears all recorded values, the registered metrics remain registered.
+     */
+    public static void reset() {
+        for (Counter counter : counters.values()) {
+            counter.reset();
+        }
+        for (Histogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Gets the number of bytes allocated so far by the current thread, or -1
+     * if this is not supported by the JVM.
+     */
+    public static long getAllocatedBytes() {
+        if (!allocation_supported) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static boolean checkAllocationSupport() {
+        try {
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sun_threads = (com.sun.management.ThreadMXBean) threads;
+                return sun_threads.isThreadAllocatedMemorySupported() && sun_threads.isThreadAllocatedMemoryEnabled();
+            }
+        } catch (LinkageError | UnsupportedOperationException e) {
+            // not a hotspot jvm
+        }
+        return false;
+    }
+
+    /**
+     * Writes all metrics as a json object to the given output.
+     */
+    public static void writeJson(Appendable out) throws IOException {
+        out.append("{\n  \"counters\": {");
+        boolean first = true;
+        for (Map.Entry<String, Counter> e : getCounters().entrySet()) {
+            out.append(first ? "\n" : ",\n");
+            first = false;
+            out.append("    \"").append(e.getKey()).append("\": ").append(String.valueOf(e.getValue().get()));
+        }
+        out.append("\n  },\n  \"histograms\": {");
+        first = true;
+        for (Map.Entry<String, Histogram> e : getHistograms().entrySet()) {
+            Histogram h = e.getValue();
+            out.append(first ? "\n" : ",\n");
+            first = false;
+            out.append("    \"").append(e.getKey()).append("\": {");
+            out.append("\"count\": ").append(String.valueOf(h.getCount()));
+            out.append(", \"sum\": ").append(String.valueOf(h.getSum()));
+            out.append(", \"min\": ").append(String.valueOf(h.getMin()));
+            out.append(", \"max\": ").append(String.valueOf(h.getMax()));
+            out.append(", \"p50\": ").append(String.valueOf(h.getPercentile(50)));
+            out.append(", \"p90\": ").append(String.valueOf(h.getPercentile(90)));
+            out.append(", \"p99\": ").append(String.valueOf(h.getPercentile(99)));
+            out.append("}");
+        }
+        out.append("\n  }\n}\n");
+    }
+
+    /**
+     * Gets all metrics as a json object.
+     */
+    public static String toJson() {
+        StringBuilder str = new StringBuilder();
+        try {
+            writeJson(str);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return str.toString();
+    }
+
+    private Metrics() {
+    }
+
+}
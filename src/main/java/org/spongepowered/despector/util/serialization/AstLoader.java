@@ -328,7 +328,7 @@ public class AstLoader {
     }
 
     public static MethodEntry loadMethod(MessageUnpacker unpack, SourceSet set) throws IOException {
-        startMap(unpack, 18);
+        startMap(unpack, 19);
         expectKey(unpack, "id");
         int id = unpack.readInt();
         if (id != AstSerializer.ENTRY_ID_METHOD) {
@@ -379,6 +379,8 @@ public class AstLoader {
         for (int i = 0; i < annotations; i++) {
             entry.addAnnotation(loadAnnotation(unpack, set));
         }
+        expectKey(unpack, "annotationvalue");
+        entry.setAnnotationValue(loadAnnotationObject(unpack, set));
         return entry;
     }
 
@@ -498,7 +500,9 @@ public class AstLoader {
             }
             expectKey(unpack, "default");
             Object def = loadAnnotationObject(unpack, set);
-            type.setDefault(key, def);
+            if (def != null) {
+                type.setDefault(key, def);
+            }
             expectKey(unpack, "value");
             Object val = loadAnnotationObject(unpack, set);
             anno.setValue(key, val);
@@ -508,6 +512,10 @@ public class AstLoader {
 
     @SuppressWarnings({"rawtypes", "unchecked"})
     private static Object loadAnnotationObject(MessageUnpacker unpack, SourceSet set) throws IOException {
+        if (unpack.peekType() == MessageType.NIL) {
+            unpack.readNil();
+            return null;
+        }
         startMap(unpack, 2);
         expectKey(unpack, "typename");
         String cl = unpack.readString();
@@ -524,6 +532,10 @@ public class AstLoader {
             return unpack.readByte();
         } else if (type == Short.class) {
             return unpack.readShort();
+        } else if (type == Character.class) {
+            return (char) unpack.readUnsignedInt();
+        } else if (type == Boolean.class) {
+            return unpack.readBool();
         } else if (type == Long.class) {
             return unpack.readLong();
         } else if (type == Float.class) {
@@ -538,6 +550,7 @@ public class AstLoader {
             for (int i = 0; i < sz; i++) {
                 lst.add(loadAnnotationObject(unpack, set));
             }
+            return lst;
         } else if (type == ClassTypeSignature.class) {
             return loadTypeSignature(unpack);
         } else if (type == Annotation.class) {
@@ -29,7 +29,7 @@ package org.spongepowered.despector.util.serialization;
  */
 public final class AstSerializer {
 
-    public static final int VERSION = 1;
+    public static final int VERSION = 2;
 
     public static final int ENTRY_ID_CLASS = 0x00;
     public static final int ENTRY_ID_ENUM = 0x01;
@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.util.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SourceSetTest {
+
+    private static final String TARGET = "org/spongepowered/test/ast/SourceSetTest$Target";
+
+    @Test
+    public void testSingleFlightLoad() throws Exception {
+        AtomicInteger finds = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        SourceSet set = new SourceSet();
+        set.setLoader((name) -> {
+            finds.incrementAndGet();
+            try {
+                // hold the load open so that the other threads pile up on it
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return SourceSetTest.class.getResourceAsStream("/" + name + ".class");
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<TypeEntry>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return set.get(TARGET);
+                }));
+            }
+            start.countDown();
+            TypeEntry first = results.get(0).get();
+            assertNotNull(first);
+            for (Future<TypeEntry> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, finds.get());
+        assertSame(set.get(TARGET), set.getAllClasses().iterator().next());
+    }
+
+    @Test
+    public void testFailedLoadCached() {
+        AtomicInteger finds = new AtomicInteger();
+        SourceSet set = new SourceSet();
+        set.setLoader((name) -> {
+            finds.incrementAndGet();
+            return null;
+        });
+        assertNull(set.get("com/example/Missing"));
+        assertNull(set.get("com/example/Missing"));
+        assertEquals(1, finds.get());
+    }
+
+    @Test
+    public void testStubLoading() {
+        SourceSet set = new SourceSet();
+        set.setStubLoading(true);
+        set.setLoader((name) -> SourceSetTest.class.getResourceAsStream("/" + name + ".class"));
+        long methods = Metrics.METHODS.get();
+        TypeEntry type = set.get(TARGET);
+        assertTrue(type.isStub());
+        MethodEntry method = type.getMethod("value");
+        assertEquals("(I)I", method.getDescription());
+        assertNull(method.getIR());
+        assertNull(method.getInstructions());
+        assertEquals(methods, Metrics.METHODS.get());
+    }
+
+    public static class Target {
+
+        public int value(int i) {
+            return i + 1;
+        }
+
+    }
+
+}
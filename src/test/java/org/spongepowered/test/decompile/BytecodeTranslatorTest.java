@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.spongepowered.despector.ast.Locals;
+import org.spongepowered.despector.decompiler.ir.InsnBlock;
+import org.spongepowered.despector.decompiler.ir.JumpInsn;
+import org.spongepowered.despector.decompiler.loader.BytecodeTranslator;
+import org.spongepowered.despector.decompiler.method.PartialMethod.TryCatchRegion;
+import org.spongepowered.despector.util.InsnOffsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BytecodeTranslatorTest {
+
+    // Each unit is ICONST_0, IFLT +4, NOP which translates to four
+    // instructions as the IFLT pushes a zero before its compare.
+    private static final int UNIT_LENGTH = 5;
+    private static final int UNIT_INSNS = 4;
+
+    private static byte[] createCode(int units) {
+        byte[] code = new byte[units * UNIT_LENGTH + 1];
+        for (int i = 0; i < units; i++) {
+            int o = i * UNIT_LENGTH;
+            code[o] = 3;
+            code[o + 1] = (byte) 155;
+            code[o + 2] = 0;
+            code[o + 3] = 4;
+            code[o + 4] = 0;
+        }
+        code[code.length - 1] = (byte) 177;
+        return code;
+    }
+
+    @Test
+    public void testInsnOffsets() {
+        InsnOffsets offsets = InsnOffsets.of(Arrays.asList(0, 1, 1, 4));
+        assertEquals(4, offsets.size());
+        assertEquals(0, offsets.indexOf(0));
+        assertEquals(1, offsets.indexOf(1));
+        assertEquals(-1, offsets.indexOf(2));
+        assertEquals(3, offsets.indexOf(4));
+        assertEquals(-1, offsets.indexOf(5));
+        assertEquals(-1, offsets.indexOf(-3));
+        assertEquals(4, offsets.get(3));
+    }
+
+    @Test
+    public void testLargeMethod() {
+        int units = 65535 / UNIT_LENGTH;
+        byte[] code = createCode(units);
+        List<TryCatchRegion> regions = new ArrayList<>();
+        regions.add(new TryCatchRegion(UNIT_LENGTH, (units - 1) * UNIT_LENGTH + 1, code.length - 1, "java/lang/Exception"));
+
+        InsnBlock block = new BytecodeTranslator().createIR(code, new Locals(true), regions, null, Collections.emptyList());
+
+        assertEquals(units * UNIT_INSNS + 1, block.size());
+        for (int i = 0; i < units; i++) {
+            JumpInsn jump = (JumpInsn) block.get(i * UNIT_INSNS + 2);
+            assertEquals((i + 1) * UNIT_INSNS, jump.getTarget());
+        }
+        TryCatchRegion region = block.getCatchRegions().get(0);
+        assertEquals(UNIT_INSNS, region.getStart());
+        // the compare and the pushed zero share an offset, the first is used
+        assertEquals((units - 1) * UNIT_INSNS + 1, region.getEnd());
+        assertEquals(units * UNIT_INSNS, region.getCatch());
+    }
+
+}
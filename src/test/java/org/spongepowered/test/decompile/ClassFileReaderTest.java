@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.spongepowered.despector.ast.SymbolTable;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool;
+import org.spongepowered.despector.decompiler.loader.ClassFileReader;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+public class ClassFileReaderTest {
+
+    @Test
+    public void testRead() throws EOFException {
+        byte[] data = new byte[] {0x7F, (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, (byte) 0xFF, (byte) 0xFE, 0x01, 0x02, 0x03};
+        ClassFileReader reader = new ClassFileReader(data, 1, 8);
+        assertEquals(0xCAFEBABE, reader.readInt());
+        assertEquals(0xFFFE, reader.readUnsignedShort());
+        assertEquals(7, reader.skipBytes(1));
+        assertEquals(0x02, reader.readByte());
+        assertEquals(9, reader.getOffset());
+        try {
+            reader.readUnsignedByte();
+            fail();
+        } catch (EOFException expected) {
+        }
+    }
+
+    @Test
+    public void testDecodeModifiedUtf8() {
+        assertEquals("abc", ClassFileReader.decodeModifiedUtf8(new byte[] {'x', 'a', 'b', 'c'}, 1, 3));
+        // the null character is encoded as two bytes
+        assertEquals("a\0b", ClassFileReader.decodeModifiedUtf8(new byte[] {'a', (byte) 0xC0, (byte) 0x80, 'b'}, 0, 4));
+        assertEquals("\u00e9\u20ac", ClassFileReader.decodeModifiedUtf8(new byte[] {(byte) 0xC3, (byte) 0xA9, (byte) 0xE2, (byte) 0x82, (byte) 0xAC}, 0, 5));
+        // supplementary characters are encoded as two three byte surrogates
+        byte[] emoji = new byte[] {(byte) 0xED, (byte) 0xA0, (byte) 0xBD, (byte) 0xED, (byte) 0xB8, (byte) 0x80};
+        assertEquals("\uD83D\uDE00", ClassFileReader.decodeModifiedUtf8(emoji, 0, 6));
+    }
+
+    @Test
+    public void testConstantPoolSymbols() throws IOException {
+        // two pools each with the utf8 "Foo", a class of it and a string of it
+        byte[] data = new byte[] {0x00, 0x04, 0x01, 0x00, 0x03, 'F', 'o', 'o', 0x07, 0x00, 0x01, 0x08, 0x00, 0x01};
+        SymbolTable symbols = new SymbolTable();
+        ClassConstantPool first = new ClassConstantPool(symbols);
+        first.load(new ClassFileReader(data));
+        ClassConstantPool second = new ClassConstantPool(symbols);
+        second.load(new ClassFileReader(data.clone()));
+        assertEquals("Foo", first.getClass(2).name);
+        assertSame(first.getClass(2).name, second.getClass(2).name);
+        assertSame(first.getUtf8(1), second.getUtf8(1));
+        assertEquals("Foo", ((ClassConstantPool.StringEntry) second.getEntry(3)).value);
+        assertEquals(1, symbols.size());
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.loader.ClasspathLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+public class ClasspathLoaderTest {
+
+    private static final String IF_TESTS = "org/spongepowered/test/decompile/IfTests";
+    private static final String WHILE_TESTS = "org/spongepowered/test/decompile/WhileTests";
+
+    private static byte[] classData(String name) throws IOException {
+        try (InputStream in = ClasspathLoaderTest.class.getResourceAsStream("/" + name + ".class")) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    private static Path createClasspath(Path root) throws IOException {
+        Path jar = root.resolve("test.jar");
+        try (OutputStream out = Files.newOutputStream(jar); JarOutputStream zip = new JarOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry(IF_TESTS + ".class"));
+            zip.write(classData(IF_TESTS));
+            zip.closeEntry();
+            byte[] data = classData(WHILE_TESTS);
+            ZipEntry stored = new ZipEntry(WHILE_TESTS + ".class");
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(data.length);
+            stored.setCrc(crc.getValue());
+            zip.putNextEntry(stored);
+            zip.write(data);
+            zip.closeEntry();
+        }
+        // a directory after the jar which also has a copy of IfTests
+        Path dir = root.resolve("classes");
+        Path shadowed = dir.resolve(IF_TESTS + ".class");
+        Files.createDirectories(shadowed.getParent());
+        Files.write(shadowed, new byte[] {1, 2, 3});
+        Files.write(dir.resolve("org/spongepowered/test/decompile/Extra.class"), new byte[] {4, 5, 6});
+        return jar;
+    }
+
+    @Test
+    public void testFind() throws IOException {
+        Path root = Files.createTempDirectory("despector");
+        Path jar = createClasspath(root);
+        List<Path> classpath = Arrays.asList(jar, root.resolve("classes"));
+        try (ClasspathLoader loader = new ClasspathLoader(classpath)) {
+            assertEquals(3, loader.size());
+            assertArrayEquals(classData(IF_TESTS), loader.read(IF_TESTS));
+            assertArrayEquals(classData(WHILE_TESTS), loader.read(WHILE_TESTS));
+            assertArrayEquals(new byte[] {4, 5, 6}, loader.read("org/spongepowered/test/decompile/Extra"));
+            assertNull(loader.find("com/example/Missing"));
+
+            SourceSet set = new SourceSet();
+            set.setLoader(loader);
+            TypeEntry type = set.get(WHILE_TESTS);
+            assertEquals(WHILE_TESTS, type.getName());
+        }
+    }
+
+    @Test
+    public void testPersistentIndex() throws IOException {
+        Path root = Files.createTempDirectory("despector");
+        Path jar = createClasspath(root);
+        Path index = root.resolve("index");
+        List<Path> classpath = Arrays.asList(jar);
+        try (ClasspathLoader loader = new ClasspathLoader(classpath, index)) {
+            assertEquals(2, loader.size());
+        }
+        try (Stream<Path> files = Files.list(index)) {
+            assertEquals(1, files.count());
+        }
+        try (ClasspathLoader loader = new ClasspathLoader(classpath, index)) {
+            assertEquals(2, loader.size());
+            assertTrue(loader.contains(IF_TESTS));
+            assertArrayEquals(classData(IF_TESTS), loader.read(IF_TESTS));
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.spongepowered.despector.decompiler.ir.Insn;
+import org.spongepowered.despector.decompiler.ir.OpInsn;
+import org.spongepowered.despector.decompiler.method.graph.DominatorTree;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.BodyOpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.ConditionalOpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlockList;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class DominatorTreeTest {
+
+    // an if-else merging into a do-while loop followed by an exit, with an
+    // unreachable handler which is an exit of its own
+    private final ConditionalOpcodeBlock cond = new ConditionalOpcodeBlock(0, 0);
+    private final OpcodeBlock left = new BodyOpcodeBlock(1, 1);
+    private final OpcodeBlock right = new BodyOpcodeBlock(2, 2);
+    private final OpcodeBlock loop = new BodyOpcodeBlock(3, 3);
+    private final ConditionalOpcodeBlock loop_cond = new ConditionalOpcodeBlock(4, 4);
+    private final OpcodeBlock exit = new BodyOpcodeBlock(5, 5);
+    private final OpcodeBlock handler = new BodyOpcodeBlock(6, 6);
+
+    private List<OpcodeBlock> createGraph() {
+        this.cond.setTarget(this.right);
+        this.cond.setElseTarget(this.left);
+        this.left.setTarget(this.loop);
+        this.right.setTarget(this.loop);
+        this.loop.setTarget(this.loop_cond);
+        this.loop_cond.setTarget(this.loop);
+        this.loop_cond.setElseTarget(this.exit);
+
+        List<OpcodeBlock> graph = new OpcodeBlockList();
+        graph.add(this.cond);
+        graph.add(this.left);
+        graph.add(this.right);
+        graph.add(this.loop);
+        graph.add(this.loop_cond);
+        graph.add(this.exit);
+        graph.add(this.handler);
+        return graph;
+    }
+
+    @Test
+    public void testDominators() {
+        DominatorTree tree = DominatorTree.dominators(createGraph());
+        assertNull(tree.getImmediateDominator(this.cond));
+        assertSame(this.cond, tree.getImmediateDominator(this.left));
+        assertSame(this.cond, tree.getImmediateDominator(this.right));
+        assertSame(this.cond, tree.getImmediateDominator(this.loop));
+        assertSame(this.loop, tree.getImmediateDominator(this.loop_cond));
+        assertSame(this.loop_cond, tree.getImmediateDominator(this.exit));
+        assertNull(tree.getImmediateDominator(this.handler));
+
+        assertTrue(tree.dominates(this.cond, this.exit));
+        assertTrue(tree.dominates(this.loop, this.loop));
+        assertFalse(tree.dominates(this.left, this.loop));
+        assertFalse(tree.dominates(this.handler, this.exit));
+        assertFalse(tree.dominates(this.cond, this.handler));
+
+        assertTrue(tree.isLoopHeader(this.loop));
+        assertFalse(tree.isLoopHeader(this.cond));
+        assertFalse(tree.isLoopHeader(this.exit));
+    }
+
+    @Test
+    public void testPostDominators() {
+        DominatorTree tree = DominatorTree.postDominators(createGraph());
+        assertSame(this.loop, tree.getImmediateDominator(this.cond));
+        assertSame(this.loop, tree.getImmediateDominator(this.left));
+        assertSame(this.loop_cond, tree.getImmediateDominator(this.loop));
+        assertSame(this.exit, tree.getImmediateDominator(this.loop_cond));
+        assertNull(tree.getImmediateDominator(this.exit));
+        assertNull(tree.getImmediateDominator(this.handler));
+
+        assertTrue(tree.dominates(this.exit, this.cond));
+        assertFalse(tree.dominates(this.right, this.cond));
+    }
+
+    @Test
+    public void testReturnIsExit() {
+        // an early return laid out before a while loop which is entered at its
+        // condition, the return is given the loop body as its target
+        ConditionalOpcodeBlock check = new ConditionalOpcodeBlock(0, 0);
+        OpcodeBlock ret = new BodyOpcodeBlock(1, 1);
+        OpcodeBlock body = new BodyOpcodeBlock(2, 2);
+        ConditionalOpcodeBlock header = new ConditionalOpcodeBlock(3, 3);
+        OpcodeBlock end = new BodyOpcodeBlock(4, 4);
+        ret.setOpcodes(Arrays.asList(new OpInsn(Insn.RETURN)));
+        check.setTarget(header);
+        check.setElseTarget(ret);
+        ret.setTarget(body);
+        body.setTarget(header);
+        header.setTarget(body);
+        header.setElseTarget(end);
+
+        List<OpcodeBlock> graph = new OpcodeBlockList();
+        graph.add(check);
+        graph.add(ret);
+        graph.add(body);
+        graph.add(header);
+        graph.add(end);
+
+        DominatorTree tree = DominatorTree.dominators(graph);
+        assertSame(header, tree.getImmediateDominator(body));
+        assertTrue(tree.isLoopHeader(header));
+        assertFalse(tree.isLoopHeader(body));
+    }
+
+}
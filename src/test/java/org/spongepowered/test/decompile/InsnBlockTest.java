@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.spongepowered.despector.ast.stmt.invoke.InstanceMethodInvoke;
+import org.spongepowered.despector.decompiler.ir.FieldInsn;
+import org.spongepowered.despector.decompiler.ir.Insn;
+import org.spongepowered.despector.decompiler.ir.InsnBlock;
+import org.spongepowered.despector.decompiler.ir.IntInsn;
+import org.spongepowered.despector.decompiler.ir.InvokeInsn;
+import org.spongepowered.despector.decompiler.ir.JumpInsn;
+import org.spongepowered.despector.decompiler.ir.LongInsn;
+import org.spongepowered.despector.decompiler.ir.OpInsn;
+import org.spongepowered.despector.decompiler.ir.VarIntInsn;
+
+import java.util.List;
+
+public class InsnBlockTest {
+
+    @Test
+    public void testViews() {
+        InsnBlock block = new InsnBlock(2);
+        block.appendInt(Insn.LOCAL_LOAD, 0);
+        block.append(new FieldInsn(Insn.GETFIELD, "Lfoo;", "bar", "J"));
+        block.appendLong(Insn.LCONST, -5L);
+        block.appendOp(Insn.ADD);
+        block.appendVarInt(Insn.IINC, 1, 0);
+        block.appendInvoke(Insn.INVOKE, InstanceMethodInvoke.Type.VIRTUAL, "Lfoo;", "baz", "(J)V");
+        block.appendJump(Insn.GOTO, 0);
+
+        assertEquals(7, block.size());
+        assertEquals(0, ((IntInsn) block.get(0)).getValue());
+        FieldInsn field = (FieldInsn) block.get(1);
+        assertEquals("Lfoo;", field.getOwner());
+        assertEquals("bar", field.getName());
+        assertEquals("J", field.getDescription());
+        assertEquals(-5L, ((LongInsn) block.get(2)).getValue());
+        assertEquals(Insn.ADD, block.get(3).getOpcode());
+        assertEquals(0, ((VarIntInsn) block.get(4)).getValue());
+        InvokeInsn invoke = (InvokeInsn) block.get(5);
+        assertEquals(InstanceMethodInvoke.Type.VIRTUAL, invoke.getType());
+        assertEquals("baz", invoke.getName());
+        assertTrue(block.isJump(6));
+
+        block.setOperand(6, 3);
+        assertEquals(3, ((JumpInsn) block.get(6)).getTarget());
+    }
+
+    @Test
+    public void testCompact() {
+        InsnBlock block = new InsnBlock(8);
+        block.appendOp(Insn.DUP);
+        block.appendType(Insn.NEW, "Lfoo;");
+        block.appendVarInt(Insn.IINC, 2, -1);
+        InsnBlock compact = block.compact();
+        block.clear();
+        assertEquals(0, block.size());
+
+        assertEquals(3, compact.size());
+        assertEquals(Insn.DUP, compact.getOpcode(0));
+        assertEquals("Lfoo;", compact.getReference(1, 0));
+        assertEquals(2, compact.getOperand(2));
+        assertEquals(-1, compact.getExtraOperand(2));
+
+        compact.appendOp(Insn.POP);
+        assertEquals(4, compact.size());
+        assertTrue(compact.get(3) instanceof OpInsn);
+
+        // instructions without operands share a single view
+        block.appendOp(Insn.DUP);
+        assertSame(compact.get(0), block.get(0));
+    }
+
+    @Test
+    public void testRange() {
+        InsnBlock block = new InsnBlock();
+        block.appendOp(Insn.DUP);
+        block.appendType(Insn.NEW, "Lfoo;");
+        block.appendInt(Insn.LOCAL_STORE, 2);
+        block.appendOp(Insn.RETURN);
+
+        InsnBlock.Range range = block.range(1, 3);
+        assertEquals(2, range.size());
+        assertSame(range, InsnBlock.Range.unmodified(range));
+        assertEquals(1, range.getStart());
+        assertEquals(Insn.NEW, range.get(0).getOpcode());
+
+        List<Insn> slice = InsnBlock.Range.slice(range, 1, 2);
+        assertEquals(2, InsnBlock.Range.unmodified(slice).getStart());
+        assertEquals(Insn.LOCAL_STORE, slice.get(0).getOpcode());
+
+        // the first change copies the range and leaves the block untouched
+        range.remove(0);
+        assertNull(InsnBlock.Range.unmodified(range));
+        assertEquals(1, range.size());
+        assertEquals(Insn.LOCAL_STORE, range.get(0).getOpcode());
+        assertEquals(4, block.size());
+        assertEquals(Insn.NEW, block.getOpcode(1));
+
+        List<Insn> copy = InsnBlock.Range.slice(range, 0, 1);
+        assertNull(InsnBlock.Range.unmodified(copy));
+        assertEquals(Insn.LOCAL_STORE, copy.get(0).getOpcode());
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.BaseDecompiler;
+import org.spongepowered.despector.decompiler.JarWalker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+public class JarWalkerTest {
+
+    private static void addClass(JarOutputStream jar, Class<?> cls) throws IOException {
+        String name = cls.getName().replace('.', '/') + ".class";
+        jar.putNextEntry(new ZipEntry(name));
+        try (InputStream in = cls.getResourceAsStream("/" + name)) {
+            ByteStreams.copy(in, jar);
+        }
+        jar.closeEntry();
+    }
+
+    private static File createJar() throws IOException {
+        File file = File.createTempFile("despector", ".jar");
+        file.deleteOnExit();
+        try (OutputStream out = Files.newOutputStream(file.toPath()); JarOutputStream jar = new JarOutputStream(out)) {
+            addClass(jar, WhileTests.class);
+            addClass(jar, StreamOuter.class);
+            addClass(jar, StreamOuter.Inner.class);
+            addClass(jar, IfTests.class);
+        }
+        return file;
+    }
+
+    @Test
+    public void testWalk() throws IOException {
+        File file = createJar();
+        SourceSet set = new SourceSet();
+        try (BaseDecompiler decompiler = new BaseDecompiler(Language.ANY)) {
+            new JarWalker(file.toPath()).walk(set, decompiler);
+            decompiler.flushTasks();
+        }
+        assertEquals(4, set.getAllClasses().size());
+        TypeEntry inner = set.get("org/spongepowered/test/decompile/JarWalkerTest$StreamOuter$Inner");
+        assertNotNull(inner);
+        assertNotNull(inner.getMethod("inner").getInstructions());
+    }
+
+    @Test
+    public void testStreamingWindows() throws IOException {
+        File file = createJar();
+
+        SourceSet set = new SourceSet();
+        List<Set<String>> windows = new ArrayList<>();
+        List<TypeEntry> seen = new ArrayList<>();
+        try (BaseDecompiler decompiler = new BaseDecompiler(Language.ANY)) {
+            new JarWalker(file.toPath()).walk(set, decompiler, 1, (types) -> {
+                Set<String> names = new HashSet<>();
+                for (TypeEntry type : types) {
+                    names.add(type.getName());
+                    for (MethodEntry method : type.getMethods()) {
+                        if (!method.isAbstract()) {
+                            assertNotNull(method.getInstructions());
+                        }
+                    }
+                }
+                windows.add(names);
+                seen.addAll(types);
+            });
+        }
+
+        assertEquals(3, windows.size());
+        assertEquals(2, windows.get(1).size());
+        assertEquals(4, seen.size());
+        for (TypeEntry type : seen) {
+            for (MethodEntry method : type.getMethods()) {
+                assertNull(method.getInstructions());
+            }
+        }
+    }
+
+    public static class StreamOuter {
+
+        public int outer(int i) {
+            return new Inner().inner(i) + 1;
+        }
+
+        public static class Inner {
+
+            public int inner(int i) {
+                return i * 2;
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.util.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LazyMethodBodyTest {
+
+    private static TypeEntry loadLazily() throws IOException {
+        boolean previous = LibraryConfiguration.lazy_method_bodies;
+        LibraryConfiguration.lazy_method_bodies = true;
+        try (InputStream in = IfTests.class.getResourceAsStream("IfTests.class")) {
+            return Decompilers.WILD.decompile(in, new SourceSet());
+        } finally {
+            LibraryConfiguration.lazy_method_bodies = previous;
+        }
+    }
+
+    @Test
+    public void testDecompiledOnFirstAccess() throws IOException {
+        long methods = Metrics.METHODS.get();
+        TypeEntry type = loadLazily();
+        MethodEntry method = type.getMethod("testSimple");
+        assertTrue(method.isBodyPending());
+        assertEquals(methods, Metrics.METHODS.get());
+
+        StatementBlock body = method.getInstructions();
+        assertNotNull(body);
+        assertNotNull(method.getIR());
+        assertFalse(method.isBodyPending());
+        assertEquals(methods + 1, Metrics.METHODS.get());
+        assertSame(body, method.getInstructions());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        TypeEntry type = loadLazily();
+        MethodEntry method = type.getMethod("testSimple");
+        long methods = Metrics.METHODS.get();
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<StatementBlock>> bodies = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                bodies.add(exec.submit(method::getInstructions));
+            }
+            StatementBlock first = bodies.get(0).get();
+            assertNotNull(first);
+            for (Future<StatementBlock> body : bodies) {
+                assertSame(first, body.get());
+            }
+        } finally {
+            exec.shutdown();
+        }
+        assertEquals(methods + 1, Metrics.METHODS.get());
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.stmt.misc.Comment;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.decompiler.error.BudgetExceededException;
+import org.spongepowered.despector.decompiler.method.MethodBudget;
+import org.spongepowered.despector.util.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public class MethodBudgetTest {
+
+    @Test
+    public void testStepLimit() {
+        MethodBudget budget = MethodBudget.start(0, 3);
+        try {
+            MethodBudget.step();
+            MethodBudget.step();
+            MethodBudget.step();
+            try {
+                MethodBudget.step();
+                fail();
+            } catch (BudgetExceededException expected) {
+            }
+        } finally {
+            budget.finish();
+        }
+        // no budget is active once finished
+        MethodBudget.step();
+        assertNull(MethodBudget.start(0, 0));
+    }
+
+    @Test
+    public void testFallbackOnExhaustedBudget() throws IOException {
+        long over_budget = Metrics.METHODS_OVER_BUDGET.get();
+        long previous = LibraryConfiguration.method_step_budget;
+        boolean quiet = LibraryConfiguration.quiet;
+        LibraryConfiguration.method_step_budget = 1;
+        LibraryConfiguration.quiet = true;
+        TypeEntry type;
+        try (InputStream in = IfTests.class.getResourceAsStream("IfTests.class")) {
+            type = Decompilers.WILD.decompile(in, new SourceSet());
+            Decompilers.WILD.flushTasks();
+        } finally {
+            LibraryConfiguration.method_step_budget = previous;
+            LibraryConfiguration.quiet = quiet;
+        }
+        MethodEntry method = type.getMethod("testSimple");
+        StatementBlock body = method.getInstructions();
+        assertEquals(1, body.getStatementCount());
+        assertTrue(body.getStatement(0) instanceof Comment);
+        assertTrue(Metrics.METHODS_OVER_BUDGET.get() > over_budget);
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.BodyOpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlockList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class OpcodeBlockListTest {
+
+    private static OpcodeBlockList create(int count) {
+        OpcodeBlockList blocks = new OpcodeBlockList();
+        for (int i = 0; i < count; i++) {
+            blocks.add(new BodyOpcodeBlock(i, i));
+        }
+        return blocks;
+    }
+
+    @Test
+    public void testIndexOf() {
+        OpcodeBlockList blocks = create(8);
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i, blocks.indexOf(blocks.get(i)));
+        }
+        OpcodeBlock extra = new BodyOpcodeBlock(8, 8);
+        assertEquals(-1, blocks.indexOf(extra));
+
+        blocks.add(extra);
+        assertEquals(8, blocks.indexOf(extra));
+
+        OpcodeBlock first = blocks.remove(0);
+        assertEquals(-1, blocks.indexOf(first));
+        assertEquals(7, blocks.indexOf(extra));
+
+        blocks.add(2, first);
+        assertEquals(2, blocks.indexOf(first));
+        assertEquals(8, blocks.indexOf(extra));
+
+        blocks.set(2, extra);
+        assertEquals(2, blocks.indexOf(extra));
+        assertFalse(blocks.contains(first));
+    }
+
+    @Test
+    public void testRegion() {
+        OpcodeBlockList blocks = create(8);
+        List<OpcodeBlock> region = OpcodeBlockList.region(blocks, 2, 6);
+        assertEquals(4, region.size());
+        assertEquals(1, region.indexOf(blocks.get(3)));
+        assertEquals(-1, region.indexOf(blocks.get(6)));
+        assertEquals(-1, region.indexOf(blocks.get(0)));
+
+        // modifying the region leaves the backing list unchanged
+        OpcodeBlock replacement = new BodyOpcodeBlock(2, 3);
+        region.set(0, replacement);
+        region.remove(1);
+        assertEquals(3, region.size());
+        assertEquals(0, region.indexOf(replacement));
+        assertEquals(8, blocks.size());
+        assertEquals(-1, blocks.indexOf(replacement));
+    }
+
+    @Test
+    public void testEditsMatchArrayList() {
+        Random random = new Random(42);
+        OpcodeBlockList blocks = create(16);
+        List<OpcodeBlock> expected = new ArrayList<>(blocks);
+        List<OpcodeBlock> pool = new ArrayList<>(blocks);
+        for (int i = 0; i < 8; i++) {
+            pool.add(new BodyOpcodeBlock(16 + i, 16 + i));
+        }
+        for (int step = 0; step < 2000; step++) {
+            OpcodeBlock block = pool.get(random.nextInt(pool.size()));
+            int op = random.nextInt(4);
+            if (op == 0 || expected.isEmpty()) {
+                int i = random.nextInt(expected.size() + 1);
+                expected.add(i, block);
+                blocks.add(i, block);
+            } else if (op == 1) {
+                int i = random.nextInt(expected.size());
+                assertSame(expected.remove(i), blocks.remove(i));
+            } else if (op == 2) {
+                int i = random.nextInt(expected.size());
+                assertSame(expected.set(i, block), blocks.set(i, block));
+            }
+            for (OpcodeBlock b : pool) {
+                assertEquals(expected.indexOf(b), blocks.indexOf(b));
+            }
+        }
+    }
+
+    @Test
+    public void testNestedRegion() {
+        OpcodeBlockList blocks = create(10);
+        List<OpcodeBlock> outer = OpcodeBlockList.region(blocks, 2, 9);
+        List<OpcodeBlock> inner = OpcodeBlockList.region(outer, 1, 4);
+        assertEquals(3, inner.size());
+        assertSame(blocks.get(3), inner.get(0));
+        assertEquals(2, inner.indexOf(blocks.get(5)));
+        assertEquals(-1, inner.indexOf(blocks.get(6)));
+
+        // editing the inner region copies it and leaves the outer view intact
+        inner.remove(0);
+        assertEquals(7, outer.size());
+        assertEquals(1, outer.indexOf(blocks.get(3)));
+    }
+
+    @Test
+    public void testTail() {
+        OpcodeBlockList blocks = create(4);
+        OpcodeBlock tail = new BodyOpcodeBlock(4, 4);
+        List<OpcodeBlock> view = OpcodeBlockList.withTail(blocks, tail);
+        assertEquals(5, view.size());
+        assertSame(tail, view.get(4));
+        assertEquals(4, view.indexOf(tail));
+        assertEquals(1, view.indexOf(blocks.get(1)));
+        assertSame(blocks, OpcodeBlockList.withTail(blocks, null));
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.spongepowered.despector.decompiler.error.SourceFormatException;
+import org.spongepowered.despector.decompiler.method.StackMapTable;
+import org.spongepowered.despector.util.InsnOffsets;
+
+import java.util.Arrays;
+
+public class StackMapTableTest {
+
+    private static final byte[] FRAMES = {
+            0, 5,
+            // same_frame at offset 4
+            4,
+            // same_locals_1_stack_item at offset 7 with an int on the stack
+            64 + 2, 1,
+            // append_frame at offset 11 adding a long and an object
+            (byte) 253, 0, 3, 4, 7, 0, 5,
+            // full_frame at offset 13 with a local created at offset 0 and
+            // an object on the stack
+            (byte) 255, 0, 1, 0, 1, 8, 0, 0, 0, 1, 7, 0, 5,
+            // chop_frame at offset 20
+            (byte) 250, 0, 6,
+    };
+
+    @Test
+    public void testFrames() {
+        StackMapTable table = new StackMapTable(FRAMES, 0, FRAMES.length);
+        table.bake(InsnOffsets.of(Arrays.asList(0, 4, 7, 11, 13, 20)));
+
+        assertEquals(5, table.getFrameCount());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i + 1, table.getFrameIndex(i));
+        }
+    }
+
+    @Test(expected = SourceFormatException.class)
+    public void testTruncated() {
+        byte[] data = {0, 2, 0};
+        new StackMapTable(data, 0, data.length).bake(InsnOffsets.of(Arrays.asList(0, 1)));
+    }
+
+    @Test(expected = SourceFormatException.class)
+    public void testUnknownType() {
+        byte[] data = {0, 1, 64, 9};
+        new StackMapTable(data, 0, data.length).bake(InsnOffsets.of(Arrays.asList(0, 1)));
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.decompiler.method.StepProfiler;
+import org.spongepowered.despector.util.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public class StepProfilerTest {
+
+    @Test
+    public void testReport() throws IOException {
+        Metrics.histogram("step.TernaryPrePassOperation").reset();
+        LibraryConfiguration.profile_steps = true;
+        try (InputStream in = TernaryTests.class.getResourceAsStream("TernaryTests.class")) {
+            Decompilers.WILD.decompile(in, new SourceSet());
+            Decompilers.WILD.flushTasks();
+        } finally {
+            LibraryConfiguration.profile_steps = false;
+        }
+        assertTrue(Metrics.histogram("step.TernaryPrePassOperation").getCount() > 0);
+        StringBuilder report = new StringBuilder();
+        StepProfiler.writeReport(report);
+        assertTrue(report.toString().contains("TernaryPrePassOperation"));
+    }
+
+}
@@ -78,6 +78,40 @@ public class TryCatchTests {
         Assert.assertEquals(good, insn);
     }
 
+    @Test
+    public void testTryCatchThenStatement() {
+        TestMethodBuilder builder = new TestMethodBuilder("test_mth", "()V");
+        MethodVisitor mv = builder.getGenerator();
+        Label l0 = new Label();
+        Label l1 = new Label();
+        Label l2 = new Label();
+        Label l4 = new Label();
+        mv.visitTryCatchBlock(l0, l1, l2, "java/lang/NullPointerException");
+        mv.visitLabel(l0);
+        mv.visitMethodInsn(INVOKESTATIC, THIS_TYPE.getInternalName(), "body", "()V", false);
+        mv.visitLabel(l1);
+        mv.visitJumpInsn(GOTO, l4);
+        mv.visitLabel(l2);
+        mv.visitVarInsn(ASTORE, 2);
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/NullPointerException", "printStackTrace", "()V", false);
+        mv.visitLabel(l4);
+        mv.visitMethodInsn(INVOKESTATIC, THIS_TYPE.getInternalName(), "body", "()V", false);
+        mv.visitInsn(RETURN);
+        Label l5 = new Label();
+        mv.visitLabel(l5);
+        mv.visitLocalVariable("e", "Ljava/lang/NullPointerException;", null, l2, l4, 2);
+
+        String insn = TestHelper.getAsString(builder.finish(), "test_mth");
+        String good = "try {\n"
+                + "    org.spongepowered.test.decompile.TryCatchTests.body();\n"
+                + "} catch (NullPointerException e) {\n"
+                + "    e.printStackTrace();\n"
+                + "}\n\n"
+                + "org.spongepowered.test.decompile.TryCatchTests.body();";
+        Assert.assertEquals(good, insn);
+    }
+
     @Test
     public void testTryMultiCatch() {
         TestMethodBuilder builder = new TestMethodBuilder("test_mth", "()V");
@@ -120,6 +154,55 @@ public class TryCatchTests {
         Assert.assertEquals(good, insn);
     }
 
+    @Test
+    public void testTryMultiCatchThrows() {
+        // the frames at the start of each handler split the handlers from the
+        // catch before them, which ends by throwing rather than jumping
+        TestMethodBuilder builder = new TestMethodBuilder("test_mth", "()V");
+        MethodVisitor mv = builder.getGenerator();
+        Label l0 = new Label();
+        Label l1 = new Label();
+        Label l2 = new Label();
+        Label l3 = new Label();
+        Label l4 = new Label();
+        mv.visitTryCatchBlock(l0, l1, l2, "java/lang/NullPointerException");
+        mv.visitTryCatchBlock(l0, l1, l3, "java/lang/OutOfMemoryError");
+        mv.visitLabel(l0);
+        mv.visitMethodInsn(INVOKESTATIC, THIS_TYPE.getInternalName(), "body", "()V", false);
+        mv.visitLabel(l1);
+        mv.visitJumpInsn(GOTO, l4);
+        mv.visitLabel(l2);
+        mv.visitVarInsn(ASTORE, 2);
+        mv.visitTypeInsn(NEW, "java/lang/IllegalStateException");
+        mv.visitInsn(DUP);
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/IllegalStateException", "<init>", "(Ljava/lang/Throwable;)V", false);
+        mv.visitInsn(ATHROW);
+        mv.visitLabel(l3);
+        mv.visitVarInsn(ASTORE, 2);
+        mv.visitTypeInsn(NEW, "java/lang/Error");
+        mv.visitInsn(DUP);
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Error", "<init>", "(Ljava/lang/Throwable;)V", false);
+        mv.visitInsn(ATHROW);
+        mv.visitLabel(l4);
+        mv.visitInsn(RETURN);
+        Label l5 = new Label();
+        mv.visitLabel(l5);
+        mv.visitLocalVariable("e", "Ljava/lang/NullPointerException;", null, l2, l3, 2);
+        mv.visitLocalVariable("e", "Ljava/lang/OutOfMemoryError;", null, l3, l4, 2);
+
+        String insn = TestHelper.getAsString(builder.finish(), "test_mth");
+        String good = "try {\n"
+                + "    org.spongepowered.test.decompile.TryCatchTests.body();\n"
+                + "} catch (NullPointerException e) {\n"
+                + "    throw new IllegalStateException(e);\n"
+                + "} catch (OutOfMemoryError e) {\n"
+                + "    throw new Error(e);\n"
+                + "}";
+        Assert.assertEquals(good, insn);
+    }
+
     @Test
     public void testTryPipeCatch() {
         TestMethodBuilder builder = new TestMethodBuilder("test_mth", "()V");
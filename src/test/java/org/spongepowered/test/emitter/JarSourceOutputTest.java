@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.emitter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+import org.spongepowered.despector.emitter.output.JarSourceOutput;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class JarSourceOutputTest {
+
+    private static List<String> write(Path jar) throws IOException {
+        try (JarSourceOutput output = new JarSourceOutput(jar)) {
+            output.begin(Arrays.asList("b/B.java", "a/A.java", "c/C.java"));
+            // emitted out of order, with an unannounced file in between
+            for (String path : new String[] {"c/C.java", "z/Extra.java", "a/A.java", "b/B.java"}) {
+                try (Writer writer = output.open(path)) {
+                    writer.write("// " + path + "\n");
+                }
+            }
+        }
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(jar))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                assertEquals("// " + entry.getName() + "\n", new String(ByteStreams.toByteArray(zip), StandardCharsets.UTF_8));
+            }
+        }
+        return names;
+    }
+
+    @Test
+    public void testDeterministicOrder() throws IOException {
+        Path jar = Files.createTempFile("despector", ".jar");
+        try {
+            // announced files come first sorted, followed by the others in the
+            // order that they were completed
+            assertEquals(Arrays.asList("a/A.java", "b/B.java", "c/C.java", "z/Extra.java"), write(jar));
+            byte[] first = Files.readAllBytes(jar);
+            write(jar);
+            assertArrayEquals(first, Files.readAllBytes(jar));
+        } finally {
+            Files.delete(jar);
+        }
+    }
+
+    @Test
+    public void testDiscard() throws IOException {
+        Path jar = Files.createTempFile("despector", ".jar");
+        try {
+            try (JarSourceOutput output = new JarSourceOutput(jar)) {
+                output.begin(Arrays.asList("a/A.java", "b/B.java"));
+                // discarded while the writer is still open, as a failed emit
+                // does before its writer is closed
+                for (String path : new String[] {"a/A.java", "z/Extra.java"}) {
+                    try (Writer writer = output.open(path)) {
+                        writer.write("// partial");
+                        output.discard(path);
+                    }
+                }
+                try (Writer writer = output.open("b/B.java")) {
+                    writer.write("// b/B.java\n");
+                }
+            }
+            List<String> names = new ArrayList<>();
+            try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(jar))) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    names.add(entry.getName());
+                }
+            }
+            assertEquals(Arrays.asList("b/B.java"), names);
+        } finally {
+            Files.delete(jar);
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.emitter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.objectweb.asm.Opcodes.RETURN;
+
+import org.junit.Test;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.emitter.output.CachingSourceOutput;
+import org.spongepowered.despector.emitter.output.DirectorySourceOutput;
+import org.spongepowered.despector.emitter.output.SourceCache;
+import org.spongepowered.despector.util.metrics.Metrics;
+import org.spongepowered.test.util.TestMethodBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+public class SourceCacheTest {
+
+    private static final List<byte[]> CLASS_FILES = Arrays.asList(new byte[] {1, 2, 3}, new byte[] {4});
+
+    @Test
+    public void testKeys() throws IOException {
+        Path root = Files.createTempDirectory("despector");
+        SourceCache cache = new SourceCache(root, "a");
+        assertEquals(cache.getKey(CLASS_FILES), cache.getKey(Arrays.asList(new byte[] {1, 2, 3}, new byte[] {4})));
+        assertNotEquals(cache.getKey(CLASS_FILES), cache.getKey(Arrays.asList(new byte[] {1, 2}, new byte[] {3, 4})));
+        assertNotEquals(cache.getKey(CLASS_FILES), new SourceCache(root, "b").getKey(CLASS_FILES));
+    }
+
+    @Test
+    public void testCachedOutput() throws IOException {
+        Path root = Files.createTempDirectory("despector");
+        SourceCache cache = new SourceCache(root.resolve("cache"), "a");
+        String key = cache.getKey(CLASS_FILES);
+        long hits = Metrics.CACHE_HITS.get();
+        long misses = Metrics.CACHE_MISSES.get();
+        assertNull(cache.get(key));
+
+        try (CachingSourceOutput output = new CachingSourceOutput(new DirectorySourceOutput(root.resolve("first")), cache)) {
+            output.expect("com/example/Foo", key);
+            try (Writer writer = output.open("com/example/Foo.java")) {
+                writer.write("class Foo {}\n");
+            }
+        }
+        SourceCache.Entry entry = cache.get(key);
+        assertEquals("com/example/Foo.java", entry.getPath());
+        assertEquals("class Foo {}\n", entry.getSource());
+        assertEquals(hits + 1, Metrics.CACHE_HITS.get());
+        assertEquals(misses + 1, Metrics.CACHE_MISSES.get());
+
+        try (CachingSourceOutput output = new CachingSourceOutput(new DirectorySourceOutput(root.resolve("second")), cache)) {
+            output.writeCached(entry);
+        }
+        byte[] written = Files.readAllBytes(root.resolve("second/com/example/Foo.java"));
+        assertEquals("class Foo {}\n", new String(written, StandardCharsets.UTF_8));
+    }
+
+    private static void addClass(JarOutputStream jar, String name) throws IOException {
+        TestMethodBuilder builder = new TestMethodBuilder(name, "()V");
+        builder.getGenerator().visitInsn(RETURN);
+        jar.putNextEntry(new ZipEntry(builder.getType().getInternalName() + ".class"));
+        jar.write(builder.finish());
+        jar.closeEntry();
+    }
+
+    private static byte[] decompile(Path jar, Path out, String... flags) throws IOException {
+        String[] args = Arrays.copyOf(flags, flags.length + 2);
+        args[flags.length] = jar.toString();
+        args[flags.length + 1] = out.toString();
+        Despector.main(args);
+        return Files.readAllBytes(out);
+    }
+
+    @Test
+    public void testDeterministicJar() throws IOException {
+        Path root = Files.createTempDirectory("despector");
+        Path jar = root.resolve("input.jar");
+        try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jar_out = new JarOutputStream(out)) {
+            // not in name order so that the jar's layout is not the output order
+            addClass(jar_out, "com/example/Util");
+            addClass(jar_out, "com/example/Shapes");
+            addClass(jar_out, "com/example/Simple");
+            addClass(jar_out, "com/example/Alpha");
+        }
+        String cache = "--cache=" + root.resolve("cache");
+
+        byte[] expected = decompile(jar, root.resolve("plain.jar"));
+        assertArrayEquals(expected, decompile(jar, root.resolve("cold.jar"), cache));
+        assertArrayEquals(expected, decompile(jar, root.resolve("warm.jar"), cache));
+
+        List<Path> entries;
+        try (Stream<Path> files = Files.walk(root.resolve("cache"))) {
+            entries = files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        assertEquals(4, entries.size());
+        Files.delete(entries.get(0));
+        assertArrayEquals(expected, decompile(jar, root.resolve("partial.jar"), cache));
+
+        // with windows of two types the cached types still take their place in
+        // the windows
+        byte[] streamed = decompile(jar, root.resolve("streamed.jar"), "--stream=2");
+        Files.delete(entries.get(1));
+        assertArrayEquals(streamed, decompile(jar, root.resolve("streamed_partial.jar"), "--stream=2", cache));
+    }
+
+}
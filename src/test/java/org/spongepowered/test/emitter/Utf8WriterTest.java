@@ -0,0 +1,56 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.emitter;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+import org.spongepowered.despector.emitter.output.Utf8Writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+public class Utf8WriterTest {
+
+    @Test
+    public void testSmallBuffer() throws IOException {
+        String text = "class A {\n    String s = \"caf\u00e9 \u20ac \uD83D\uDE00\";\n}\n";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // a buffer small enough that surrogate pairs are split across chunks
+        try (Utf8Writer writer = new Utf8Writer(Channels.newChannel(bytes), 3)) {
+            StringBuilder line = new StringBuilder();
+            for (String part : text.split("(?<=\n)")) {
+                line.setLength(0);
+                line.append(part, 0, part.length() - 1);
+                writer.append(line);
+                writer.write('\n');
+            }
+        }
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), bytes.toByteArray());
+    }
+
+}
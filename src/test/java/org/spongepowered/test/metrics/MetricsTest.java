@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.spongepowered.despector.util.metrics.Counter;
+import org.spongepowered.despector.util.metrics.Histogram;
+import org.spongepowered.despector.util.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MetricsTest {
+
+    @Test
+    public void testHistogram() {
+        Histogram h = Metrics.histogram("test.histogram");
+        h.reset();
+        for (int i = 1; i <= 100; i++) {
+            h.record(i);
+        }
+        assertEquals(100, h.getCount());
+        assertEquals(5050, h.getSum());
+        assertEquals(1, h.getMin());
+        assertEquals(100, h.getMax());
+        // 50 falls in the bucket [32, 63]
+        assertEquals(63, h.getPercentile(50));
+        assertEquals(100, h.getPercentile(99));
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getMin());
+        assertEquals(0, h.getPercentile(50));
+    }
+
+    @Test
+    public void testConcurrentCounter() throws InterruptedException {
+        Counter counter = Metrics.counter("test.counter");
+        counter.reset();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    counter.increment();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, counter.get());
+        assertTrue(counter == Metrics.counter("test.counter"));
+    }
+
+    @Test
+    public void testJson() {
+        Metrics.counter("test.json").reset();
+        Metrics.counter("test.json").add(3);
+        String json = Metrics.toJson();
+        assertTrue(json.contains("\"test.json\": 3"));
+        assertTrue(json.contains("\"phase.ir\": {\"count\": "));
+    }
+
+}
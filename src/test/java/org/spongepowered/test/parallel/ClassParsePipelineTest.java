@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.BaseDecompiler;
+import org.spongepowered.despector.parallel.ClassParsePipeline;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public class ClassParsePipelineTest {
+
+    private static final Class<?>[] CLASSES = new Class<?>[] {
+            SchedulerTest.class,
+            CostModelTest.class,
+            ClassParsePipelineTest.class,
+    };
+
+    private static byte[] getBytes(Class<?> cls) throws IOException {
+        String name = "/" + cls.getName().replace('.', '/') + ".class";
+        try (InputStream in = cls.getResourceAsStream(name)) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    @Test
+    public void testParse() throws IOException {
+        SourceSet set = new SourceSet();
+        try (BaseDecompiler decompiler = new BaseDecompiler(Language.ANY)) {
+            ClassParsePipeline pipeline = new ClassParsePipeline(set, decompiler, 3);
+            for (int i = 0; i < 10; i++) {
+                for (Class<?> cls : CLASSES) {
+                    pipeline.submit(getBytes(cls));
+                }
+            }
+            pipeline.finish();
+            decompiler.flushTasks();
+        }
+        assertEquals(CLASSES.length, set.getAllClasses().size());
+        for (Class<?> cls : CLASSES) {
+            TypeEntry type = set.get(cls.getName().replace('.', '/'));
+            assertNotNull(type);
+        }
+    }
+
+}
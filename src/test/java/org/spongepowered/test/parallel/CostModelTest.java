@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.parallel;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.spongepowered.despector.parallel.CostModel;
+
+public class CostModelTest {
+
+    @Test
+    public void testStraightLine() {
+        byte[] code = new byte[] {
+                3, // ICONST_0
+                16, 5, // BIPUSH 5
+                96, // IADD
+                (byte) 172, // IRETURN
+        };
+        assertEquals(0, CostModel.countBranches(code));
+    }
+
+    @Test
+    public void testJumps() {
+        byte[] code = new byte[] {
+                3, // ICONST_0
+                (byte) 153, 0, 7, // IFEQ +7
+                (byte) 132, 1, 1, // IINC 1 1
+                (byte) 167, (byte) 0xFF, (byte) 0xF9, // GOTO -7
+                (byte) 177, // RETURN
+        };
+        assertEquals(2, CostModel.countBranches(code));
+    }
+
+    @Test
+    public void testTableSwitch() {
+        byte[] code = new byte[] {
+                3, // ICONST_0
+                (byte) 170, 0, 0, // TABLESWITCH + padding
+                0, 0, 0, 28, // default
+                0, 0, 0, 0, // low
+                0, 0, 0, 2, // high
+                0, 0, 0, 28, // case 0
+                0, 0, 0, 28, // case 1
+                0, 0, 0, 28, // case 2
+                (byte) 177, // RETURN
+        };
+        assertEquals(4, CostModel.countBranches(code));
+    }
+
+    @Test
+    public void testTableSwitchSlice() {
+        // the switch padding is relative to the start of the method's code
+        // rather than the start of the array holding it
+        byte[] data = new byte[] {
+                1, 2, 3, // unrelated data before the code
+                3, // ICONST_0
+                (byte) 170, 0, 0, // TABLESWITCH + padding
+                0, 0, 0, 28, // default
+                0, 0, 0, 0, // low
+                0, 0, 0, 2, // high
+                0, 0, 0, 28, // case 0
+                0, 0, 0, 28, // case 1
+                0, 0, 0, 28, // case 2
+                (byte) 177, // RETURN
+                4, 5, // unrelated data after the code
+        };
+        assertEquals(4, CostModel.countBranches(data, 3, data.length - 5));
+    }
+
+    @Test
+    public void testLookupSwitch() {
+        byte[] code = new byte[] {
+                (byte) 171, 0, 0, 0, // LOOKUPSWITCH + padding
+                0, 0, 0, 20, // default
+                0, 0, 0, 1, // npairs
+                0, 0, 0, 7, 0, 0, 0, 20, // 7 -> +20
+                (byte) 153, 0, 3, // IFEQ +3
+                (byte) 177, // RETURN
+        };
+        assertEquals(3, CostModel.countBranches(code));
+    }
+
+    @Test
+    public void testMalformedSwitch() {
+        // switch sizes which would overflow the offset of the next opcode
+        byte[] table = new byte[] {
+                (byte) 153, 0, 3, // IFEQ +3
+                (byte) 170, // TABLESWITCH
+                0, 0, 0, 0, // default
+                0, 0, 0, 0, // low
+                0x1F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, // high
+                (byte) 177, // RETURN
+        };
+        assertEquals(1, CostModel.countBranches(table));
+        byte[] lookup = new byte[] {
+                (byte) 153, 0, 3, // IFEQ +3
+                (byte) 171, // LOOKUPSWITCH
+                0, 0, 0, 0, // default
+                0x10, 0, 0, 0, // npairs
+                (byte) 177, // RETURN
+        };
+        assertEquals(1, CostModel.countBranches(lookup));
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.spongepowered.despector.parallel.DivisibleTask;
+import org.spongepowered.despector.parallel.Scheduler;
+import org.spongepowered.despector.parallel.Scheduler.WorkerStats;
+import org.spongepowered.despector.parallel.WeightedTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SchedulerTest {
+
+    @Test
+    public void testDivisibleTasks() {
+        AtomicInteger counter = new AtomicInteger();
+        Scheduler<CountingTask> scheduler = new Scheduler<>(4);
+        for (int i = 0; i < 200; i++) {
+            scheduler.add(new CountingTask(counter, i % 7 + 1));
+        }
+        scheduler.execute();
+        int expected = 0;
+        for (int i = 0; i < 200; i++) {
+            expected += i % 7 + 1;
+        }
+        assertEquals(expected, counter.get());
+
+        long units = 0;
+        for (WorkerStats stats : scheduler.getWorkerStats()) {
+            units += stats.getTasksRun();
+        }
+        assertEquals(expected, units);
+    }
+
+    @Test
+    public void testSerialBelowThreshold() {
+        AtomicInteger counter = new AtomicInteger();
+        Scheduler<CountingTask> scheduler = new Scheduler<>(4);
+        scheduler.add(new CountingTask(counter, 5));
+        scheduler.execute();
+        assertEquals(5, counter.get());
+        assertEquals(0, scheduler.getWorkerStats().size());
+    }
+
+    @Test
+    public void testWorkersReused() {
+        AtomicInteger counter = new AtomicInteger();
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        try (Scheduler<Runnable> scheduler = new Scheduler<>(2)) {
+            for (int run = 0; run < 3; run++) {
+                for (int i = 0; i < 150; i++) {
+                    scheduler.add(() -> {
+                        threads.add(Thread.currentThread());
+                        counter.incrementAndGet();
+                    });
+                }
+                scheduler.execute();
+                scheduler.reset();
+            }
+        }
+        assertEquals(450, counter.get());
+        assertTrue(threads.size() <= 2);
+    }
+
+    @Test
+    public void testExternalExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try (Scheduler<CountingTask> scheduler = new Scheduler<>(executor)) {
+            for (int i = 0; i < 150; i++) {
+                scheduler.add(new CountingTask(counter, 2));
+            }
+            scheduler.execute();
+        }
+        assertFalse(executor.isShutdown());
+        executor.shutdown();
+        assertEquals(300, counter.get());
+    }
+
+    @Test
+    public void testWorkersWithSameName() {
+        AtomicInteger counter = new AtomicInteger();
+        CyclicBarrier barrier = new CyclicBarrier(3);
+        ExecutorService executor = Executors.newFixedThreadPool(3, (r) -> new Thread(r, "worker"));
+        try (Scheduler<Runnable> scheduler = new Scheduler<>(executor)) {
+            for (int i = 0; i < 150; i++) {
+                scheduler.add(() -> {
+                    // hold the first units until every thread is running one
+                    if (counter.getAndIncrement() < 3) {
+                        try {
+                            barrier.await();
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+            }
+            scheduler.execute();
+
+            assertEquals(3, scheduler.getWorkerStats().size());
+            long units = 0;
+            for (WorkerStats stats : scheduler.getWorkerStats()) {
+                assertEquals("worker", stats.getName());
+                units += stats.getTasksRun();
+            }
+            assertEquals(150, units);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExpensiveUnitsFirst() {
+        List<Long> started = new ArrayList<>();
+        try (Scheduler<Runnable> scheduler = new Scheduler<>(2)) {
+            for (int i = 1; i <= 40; i++) {
+                long cost = i * 1000;
+                scheduler.add(new WeightedTask() {
+
+                    @Override
+                    public void run() {
+                        synchronized (started) {
+                            started.add(cost);
+                        }
+                    }
+
+                    @Override
+                    public long getCost() {
+                        return cost;
+                    }
+                });
+            }
+            scheduler.execute();
+        }
+        assertEquals(40, started.size());
+        // units are claimed in order of decreasing cost, with two workers a
+        // unit may only be recorded after the one claimed just after it
+        for (int k = 0; k < 40; k++) {
+            assertTrue("Unit " + k + " started with cost " + started.get(k), started.get(k) >= (40 - k - 1) * 1000);
+        }
+    }
+
+    private static class CountingTask implements DivisibleTask {
+
+        private final AtomicInteger counter;
+        private final int units;
+
+        public CountingTask(AtomicInteger counter, int units) {
+            this.counter = counter;
+            this.units = units;
+        }
+
+        @Override
+        public void run() {
+            for (Runnable unit : split()) {
+                unit.run();
+            }
+        }
+
+        @Override
+        public List<Runnable> split() {
+            List<Runnable> result = new ArrayList<>();
+            for (int i = 0; i < this.units; i++) {
+                result.add(this.counter::incrementAndGet);
+            }
+            return result;
+        }
+
+    }
+
+}
@@ -26,6 +26,9 @@ package org.spongepowered.test.serialization;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.spongepowered.despector.ast.Annotation;
+import org.spongepowered.despector.ast.Annotation.EnumConstant;
+import org.spongepowered.despector.ast.AnnotationType;
 import org.spongepowered.despector.ast.Locals;
 import org.spongepowered.despector.ast.Locals.Local;
 import org.spongepowered.despector.ast.Locals.LocalInstance;
@@ -38,6 +41,8 @@ import org.spongepowered.despector.util.serialization.MessageUnpacker;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 public class AstSerializationTest {
 
@@ -63,4 +68,31 @@ public class AstSerializationTest {
         Assert.assertEquals(b, l.getParameterInstance());
     }
 
+    @Test
+    public void testAnnotation() throws IOException {
+        SourceSet set = new SourceSet();
+        AnnotationType type = set.getAnnotationType("test/Anno");
+        type.setType("flag", Boolean.class);
+        type.setType("ch", Character.class);
+        type.setType("when", EnumConstant.class);
+        type.setType("names", ArrayList.class);
+        Annotation anno = new Annotation(type);
+        anno.setValue("flag", Boolean.TRUE);
+        anno.setValue("ch", Character.valueOf('x'));
+        anno.setValue("when", new EnumConstant("Ltest/When;", "ALWAYS"));
+        anno.setValue("names", new ArrayList<>(Arrays.asList("a", "b")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MessagePacker pack = new MessagePacker(out);
+        anno.writeTo(pack);
+        MessageUnpacker unpack = new MessageUnpacker(new ByteArrayInputStream(out.toByteArray()));
+        Annotation loaded = AstLoader.loadAnnotation(unpack, new SourceSet());
+
+        Assert.assertEquals(Boolean.TRUE, loaded.getValue("flag"));
+        Assert.assertEquals(Character.valueOf('x'), loaded.getValue("ch"));
+        Assert.assertEquals("ALWAYS", ((EnumConstant) loaded.getValue("when")).getConstantName());
+        Assert.assertEquals(Arrays.asList("a", "b"), loaded.getValue("names"));
+        Assert.assertNull(loaded.getType().getDefaultValue("flag"));
+    }
+
 }